@@ -0,0 +1,231 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends log messages to a file from a background thread.
+ * <p>
+ * {@link #log(String)} merely enqueues the message, so the logging thread
+ * (often the macro interpreter) does not wait for the disk. A dedicated thread
+ * drains the queue, writing the messages in batches with a single flush per
+ * batch. The queue is bounded: when it is full, loggers wait for the writer to
+ * catch up, rather than exhausting memory.
+ * </p>
+ * <p>
+ * Once the file grows beyond a given size, it is renamed to
+ * {@code <name>.1} (shifting older backups to {@code <name>.2} and so on) and
+ * a fresh file is started.
+ * </p>
+ */
+class AsyncLogWriter implements Closeable {
+
+	/** Maximum number of messages written between flushes. */
+	private static final int BATCH_SIZE = 1024;
+
+	/** How long the writer thread sleeps when there is nothing to write. */
+	private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private final File file;
+	private final int capacity;
+	private final long maxSize;
+	private final int backups;
+
+	private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final Thread thread;
+
+	private volatile boolean closed;
+	private volatile boolean idle;
+
+	/** Accessed only by the writer thread (after construction). */
+	private Writer writer;
+	private long written;
+
+	/**
+	 * Creates a new log writer, appending to the given file.
+	 *
+	 * @param file The log file.
+	 * @param capacity The maximum number of queued messages.
+	 * @param maxSize The size (in characters) beyond which the log is rotated,
+	 *          or 0 to never rotate.
+	 * @param backups The number of rotated log files to keep.
+	 * @throws IOException if the file cannot be opened.
+	 */
+	AsyncLogWriter(final File file, final int capacity, final long maxSize,
+		final int backups) throws IOException
+	{
+		this.file = file;
+		this.capacity = Math.max(1, capacity);
+		this.maxSize = maxSize;
+		this.backups = backups;
+		open(true);
+		writer.write("Started new log on " + new Date() + "\n");
+		writer.flush();
+		thread = new Thread(this::drainLoop, "ImageJ-Log-Writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/** Enqueues the given message, to be written as a line of the log file. */
+	void log(final String message) {
+		while (true) {
+			if (closed) return;
+			final int n = queued.get();
+			if (n < capacity) {
+				if (queued.compareAndSet(n, n + 1)) break;
+				continue;
+			}
+			// the queue is full; wait for the writer to catch up
+			LockSupport.unpark(thread);
+			LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(100));
+		}
+		queue.offer(message);
+		if (idle) LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Writes all queued messages, flushes and closes the log file, and stops the
+	 * writer thread.
+	 */
+	@Override
+	public void close() {
+		if (closed) return;
+		closed = true;
+		LockSupport.unpark(thread);
+		try {
+			thread.join(TimeUnit.SECONDS.toMillis(10));
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// -- Helper methods --
+
+	private void drainLoop() {
+		try {
+			while (true) {
+				// NB: Read the flag before draining, so that messages enqueued
+				// before close() was called are always written.
+				final boolean done = closed;
+				if (drain() > 0) continue;
+				if (done) break;
+				idle = true;
+				if (queue.isEmpty() && !closed) LockSupport.parkNanos(this, IDLE_NANOS);
+				idle = false;
+			}
+		}
+		catch (final IOException exc) {
+			exc.printStackTrace();
+			closed = true;
+			queue.clear();
+		}
+		finally {
+			try {
+				writer.close();
+			}
+			catch (final IOException exc) {
+				exc.printStackTrace();
+			}
+		}
+	}
+
+	/** Writes up to one batch of messages, then flushes. */
+	private int drain() throws IOException {
+		int count = 0;
+		while (count < BATCH_SIZE) {
+			final String message = queue.poll();
+			if (message == null) break;
+			queued.decrementAndGet();
+			write(message);
+			count++;
+		}
+		if (count > 0) writer.flush();
+		return count;
+	}
+
+	private void write(final String message) throws IOException {
+		writer.write(message);
+		written += message.length();
+		if (!message.endsWith("\n")) {
+			writer.write('\n');
+			written++;
+		}
+		if (maxSize > 0 && written >= maxSize) rotate();
+	}
+
+	private void rotate() throws IOException {
+		writer.close();
+		if (backups > 0) {
+			for (int i = backups - 1; i >= 1; i--) {
+				final File older = backup(i);
+				if (older.exists()) renameTo(older, backup(i + 1));
+			}
+			renameTo(file, backup(1));
+		}
+		open(false);
+	}
+
+	private File backup(final int index) {
+		return new File(file.getPath() + "." + index);
+	}
+
+	private static void renameTo(final File from, final File to)
+		throws IOException
+	{
+		if (to.exists() && !to.delete()) {
+			throw new IOException("Cannot delete " + to);
+		}
+		if (!from.renameTo(to)) {
+			throw new IOException("Cannot rename " + from + " to " + to);
+		}
+	}
+
+	private void open(final boolean append) throws IOException {
+		written = append && file.exists() ? file.length() : 0;
+		writer = new OutputStreamWriter(new FileOutputStream(file, append),
+			StandardCharsets.UTF_8);
+	}
+
+}
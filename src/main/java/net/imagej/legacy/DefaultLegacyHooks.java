@@ -45,6 +45,7 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashSet;
@@ -57,6 +58,7 @@ import java.util.regex.Pattern;
 import javax.swing.KeyStroke;
 
 import net.imagej.display.ImageDisplay;
+import net.imagej.legacy.HookMetrics.Hook;
 import net.imagej.legacy.plugin.LegacyAppConfiguration;
 import net.imagej.legacy.plugin.LegacyEditor;
 import net.imagej.legacy.plugin.LegacyOpener;
@@ -84,6 +86,13 @@ import ij.ImagePlus;
  */
 public class DefaultLegacyHooks extends LegacyHooks {
 
+	/**
+	 * System property to open the files of a folder dropped onto the main
+	 * window as one batch, instead of ImageJ 1.x's folder handling.
+	 */
+	private static final String BATCH_OPEN_FOLDERS_PROPERTY =
+		"imagej.legacy.batchOpenFolders";
+
 	private final LegacyService legacyService;
 
 	private LogService log;
@@ -95,8 +104,19 @@ public class DefaultLegacyHooks extends LegacyHooks {
 	/** If the ij.log.file property is set, logs every message to this file. */
 	private BufferedWriter logFileWriter;
 
+	/**
+	 * If the ij.log.file.async property is set, the log file is written from a
+	 * background thread instead.
+	 */
+	private volatile AsyncLogWriter asyncLogWriter;
+
+	/** Latency of the interception points. */
+	private final HookMetrics metrics;
+
 	public DefaultLegacyHooks(final LegacyService legacyService) {
 		this.legacyService = legacyService;
+		metrics = legacyService == null ? new HookMetrics() : legacyService
+			.getHookMetrics();
 	}
 
 	@Override
@@ -129,16 +149,36 @@ public class DefaultLegacyHooks extends LegacyHooks {
 	@Override
 	public void dispose() {
 		IJ1Helper.subscribeEvents(null);
+		final AsyncLogWriter asyncWriter;
+		synchronized (this) {
+			asyncWriter = asyncLogWriter;
+			asyncLogWriter = null;
+		}
+		if (asyncWriter != null) asyncWriter.close();
 		// TODO: if there are still things open, we should object.
 	}
 
 	@Override
 	public Object interceptRunPlugIn(final String className, final String arg) {
+		final long start = metrics.start();
+		try {
+			return runPlugIn(className, arg);
+		}
+		finally {
+			metrics.record(Hook.RUN_PLUGIN, start);
+		}
+	}
+
+	private Object runPlugIn(final String className, final String arg) {
 		if (LegacyService.class.getName().equals(className)) return legacyService;
 		if (Context.class.getName().equals(className)) {
 			return legacyService == null ? null : legacyService.getContext();
 		}
 
+		// NB: Commands overriding IJ1 commands only take effect once the
+		// legacy commands are initialized; see LegacyService#ensureCommandsInitialized
+		if (legacyService != null) legacyService.ensureCommandsInitialized();
+
 		IJ1Helper helper = helper();
 
 		// Intercept IJ1 commands
@@ -165,6 +205,16 @@ public class DefaultLegacyHooks extends LegacyHooks {
 
 	@Override
 	public void registerImage(final Object o) {
+		final long start = metrics.start();
+		try {
+			register(o);
+		}
+		finally {
+			metrics.record(Hook.REGISTER_IMAGE, start);
+		}
+	}
+
+	private void register(final Object o) {
 		if (!legacyService.isSyncEnabled()) return;
 
 		final ImagePlus image = (ImagePlus) o;
@@ -182,6 +232,16 @@ public class DefaultLegacyHooks extends LegacyHooks {
 
 	@Override
 	public void unregisterImage(final Object o) {
+		final long start = metrics.start();
+		try {
+			unregister(o);
+		}
+		finally {
+			metrics.record(Hook.UNREGISTER_IMAGE, start);
+		}
+	}
+
+	private void unregister(final Object o) {
 		final ImagePlus image = (ImagePlus) o;
 		if (image == null) return;
 		legacyService.log().debug("unregister legacy image: " + image);
@@ -214,6 +274,11 @@ public class DefaultLegacyHooks extends LegacyHooks {
 		if (message != null) {
 			final String logFilePath = System.getProperty("ij.log.file");
 			if (logFilePath != null) {
+				if (Boolean.getBoolean("ij.log.file.async")) {
+					final AsyncLogWriter asyncWriter = asyncLogWriter(logFilePath);
+					if (asyncWriter != null) asyncWriter.log(message);
+					return;
+				}
 				try {
 					if (logFileWriter == null) {
 						final OutputStream out = new FileOutputStream(logFilePath, true);
@@ -234,6 +299,36 @@ public class DefaultLegacyHooks extends LegacyHooks {
 		}
 	}
 
+	/**
+	 * Returns the background writer for the given log file, starting it if
+	 * necessary.
+	 * <p>
+	 * The queue capacity, the size beyond which the log file is rotated and the
+	 * number of rotated files to keep can be configured via the
+	 * {@code ij.log.file.queueSize}, {@code ij.log.file.maxSize} and
+	 * {@code ij.log.file.backups} system properties, respectively.
+	 * </p>
+	 */
+	private AsyncLogWriter asyncLogWriter(final String logFilePath) {
+		final AsyncLogWriter writer = asyncLogWriter;
+		if (writer != null) return writer;
+		synchronized (this) {
+			if (asyncLogWriter == null) {
+				try {
+					asyncLogWriter = new AsyncLogWriter(new File(logFilePath), //
+						Integer.getInteger("ij.log.file.queueSize", 65536), //
+						Long.getLong("ij.log.file.maxSize", 0), //
+						Integer.getInteger("ij.log.file.backups", 1));
+				}
+				catch (final Throwable t) {
+					t.printStackTrace();
+					System.getProperties().remove("ij.log.file");
+				}
+			}
+			return asyncLogWriter;
+		}
+	}
+
 	/**
 	 * Returns the application name for use with ImageJ 1.x.
 	 *
@@ -270,6 +365,9 @@ public class DefaultLegacyHooks extends LegacyHooks {
 
 	@Override
 	public void runAfterRefreshMenus() {
+		// NB: ImageJ 1.x rebuilt its menus, dropping the modern commands.
+		final IJ1Helper ij1Helper = legacyService.getIJ1Helper();
+		if (ij1Helper != null) ij1Helper.refreshMenuItems();
 		if (afterRefreshMenus != null) {
 			for (final Runnable run : afterRefreshMenus) {
 				run.run();
@@ -365,6 +463,18 @@ public class DefaultLegacyHooks extends LegacyHooks {
 	@Override
 	public Object interceptOpen(final String path, final int planeIndex,
 		final boolean display)
+	{
+		final long start = metrics.start();
+		try {
+			return open(path, planeIndex, display);
+		}
+		finally {
+			metrics.record(Hook.OPEN, start);
+		}
+	}
+
+	private Object open(final String path, final int planeIndex,
+		final boolean display)
 	{
 		for (final LegacyOpener opener : legacyOpeners) {
 			final Object result = opener.open(path, planeIndex, display);
@@ -375,6 +485,16 @@ public class DefaultLegacyHooks extends LegacyHooks {
 
 	@Override
 	public Object interceptFileOpen(final String path) {
+		final long start = metrics.start();
+		try {
+			return fileOpen(path);
+		}
+		finally {
+			metrics.record(Hook.FILE_OPEN, start);
+		}
+	}
+
+	private Object fileOpen(final String path) {
 		for (final LegacyOpener opener : legacyOpeners) {
 			final Object result = opener.open(path, -1, true);
 			if (result != null) return result;
@@ -384,6 +504,16 @@ public class DefaultLegacyHooks extends LegacyHooks {
 
 	@Override
 	public Object interceptOpenImage(final String path, final int planeIndex) {
+		final long start = metrics.start();
+		try {
+			return openImage(path, planeIndex);
+		}
+		finally {
+			metrics.record(Hook.OPEN_IMAGE, start);
+		}
+	}
+
+	private Object openImage(final String path, final int planeIndex) {
 		for (final LegacyOpener opener : legacyOpeners) {
 			final Object result = opener.open(path, planeIndex, false);
 			if (result != null) return result;
@@ -393,6 +523,16 @@ public class DefaultLegacyHooks extends LegacyHooks {
 
 	@Override
 	public Object interceptOpenRecent(final String path) {
+		final long start = metrics.start();
+		try {
+			return openRecent(path);
+		}
+		finally {
+			metrics.record(Hook.OPEN_RECENT, start);
+		}
+	}
+
+	private Object openRecent(final String path) {
 		for (final LegacyOpener opener : legacyOpeners) {
 			final Object result = opener.open(path, -1, true);
 			if (result != null) return result;
@@ -402,7 +542,26 @@ public class DefaultLegacyHooks extends LegacyHooks {
 
 	@Override
 	public Object interceptDragAndDropFile(final File f) {
+		final long start = metrics.start();
+		try {
+			return dragAndDropFile(f);
+		}
+		finally {
+			metrics.record(Hook.DRAG_AND_DROP, start);
+		}
+	}
+
+	private Object dragAndDropFile(final File f) {
 		if (f.getName().endsWith(".lut")) return null;
+		if (f.isDirectory() && Boolean.getBoolean(BATCH_OPEN_FOLDERS_PROPERTY)) {
+			// Open all files of a dropped folder as a batch, so that their data can
+			// be read concurrently, instead of ImageJ 1.x's folder handling.
+			final List<String> paths = listFiles(f);
+			if (!paths.isEmpty()) {
+				legacyService.getIJ1Helper().openAllAndAddToRecent(paths);
+				return Boolean.TRUE; // handled
+			}
+		}
 		String path;
 		try {
 			path = f.getCanonicalPath();
@@ -419,6 +578,16 @@ public class DefaultLegacyHooks extends LegacyHooks {
 
 	@Override
 	public boolean interceptKeyPressed(final KeyEvent e) {
+		final long start = metrics.start();
+		try {
+			return keyPressed(e);
+		}
+		finally {
+			metrics.record(Hook.KEY_PRESSED, start);
+		}
+	}
+
+	private boolean keyPressed(final KeyEvent e) {
 		String accelerator = KeyStroke.getKeyStrokeForEvent(e).toString();
 		if (accelerator.startsWith("pressed ")) {
 			accelerator = accelerator.substring("pressed ".length());
@@ -624,6 +793,58 @@ public class DefaultLegacyHooks extends LegacyHooks {
 		return false;
 	}
 
+	/**
+	 * Opens several paths as one batch: each path is handled by the first
+	 * {@link LegacyOpener} which does not decline it.
+	 *
+	 * @return The results, in the order of the given paths; {@code null} for
+	 *         each path which none of the openers handled.
+	 */
+	List<Object> openAll(final List<String> paths,
+		final boolean display)
+	{
+		final Object[] results = new Object[paths.size()];
+		List<Integer> pending = new ArrayList<>();
+		for (int i = 0; i < paths.size(); i++)
+			pending.add(i);
+		for (final LegacyOpener opener : legacyOpeners) {
+			if (pending.isEmpty()) break;
+			final List<String> pendingPaths = new ArrayList<>();
+			for (final int i : pending)
+				pendingPaths.add(paths.get(i));
+			final List<Object> openerResults = opener.open(pendingPaths, display);
+			final List<Integer> stillPending = new ArrayList<>();
+			for (int p = 0; p < pending.size(); p++) {
+				final Object result = p < openerResults.size() ? //
+					openerResults.get(p) : null;
+				// NB: An opener declines a path by returning null or the path itself.
+				final int i = pending.get(p);
+				if (result == null || paths.get(i).equals(result)) stillPending.add(i);
+				else results[i] = result;
+			}
+			pending = stillPending;
+		}
+		return Arrays.asList(results);
+	}
+
+	/** Lists the canonical paths of the visible files in a folder, by name. */
+	private List<String> listFiles(final File dir) {
+		final List<String> paths = new ArrayList<>();
+		final File[] files = dir.listFiles();
+		if (files == null) return paths;
+		Arrays.sort(files);
+		for (final File file : files) {
+			if (!file.isFile() || file.isHidden()) continue;
+			try {
+				paths.add(file.getCanonicalPath());
+			}
+			catch (final IOException e) {
+				log.error(e);
+			}
+		}
+		return paths;
+	}
+
 	/**
 	 * Determines whether the current stack trace contains the specified string.
 	 *
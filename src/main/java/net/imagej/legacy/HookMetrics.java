@@ -0,0 +1,253 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the calls to the legacy hooks' interception points, and records how
+ * long they take.
+ * <p>
+ * Every {@code run}, open, image registration and key press of ImageJ 1.x
+ * passes through {@link DefaultLegacyHooks}, so these metrics tell how much
+ * time is spent in the legacy bridge, as opposed to ImageJ 1.x itself.
+ * Recording is off by default; enable it with {@link #setEnabled(boolean)} or
+ * by setting the {@code imagej.legacy.hookMetrics} system property. Recording
+ * does not allocate any objects.
+ * </p>
+ *
+ * @see LegacyService#getHookMetrics()
+ */
+public class HookMetrics {
+
+	/** The interception points whose latency is recorded. */
+	public enum Hook {
+			RUN_PLUGIN("interceptRunPlugIn"), //
+			OPEN("interceptOpen"), //
+			FILE_OPEN("interceptFileOpen"), //
+			OPEN_IMAGE("interceptOpenImage"), //
+			OPEN_RECENT("interceptOpenRecent"), //
+			DRAG_AND_DROP("interceptDragAndDropFile"), //
+			REGISTER_IMAGE("registerImage"), //
+			UNREGISTER_IMAGE("unregisterImage"), //
+			KEY_PRESSED("interceptKeyPressed");
+
+		private final String methodName;
+
+		private Hook(final String methodName) {
+			this.methodName = methodName;
+		}
+
+		/** Gets the name of the {@link DefaultLegacyHooks} method. */
+		public String getMethodName() {
+			return methodName;
+		}
+	}
+
+	private final Histogram[] histograms = new Histogram[Hook.values().length];
+
+	private volatile boolean enabled;
+
+	public HookMetrics() {
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new Histogram();
+		}
+	}
+
+	/** Gets whether calls to the hooks are currently recorded. */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/** Starts or stops recording calls to the hooks. */
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Marks the start of a hook call.
+	 *
+	 * @return the start time to pass to {@link #record(Hook, long)}, or 0 if
+	 *         recording is disabled.
+	 */
+	public long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Records the end of a hook call.
+	 *
+	 * @param hook The interception point which was called.
+	 * @param start The value returned by {@link #start()} when the call began.
+	 */
+	public void record(final Hook hook, final long start) {
+		if (start == 0) return;
+		histograms[hook.ordinal()].record(System.nanoTime() - start);
+	}
+
+	/** Gets the latency histogram of the given interception point. */
+	public Histogram getHistogram(final Hook hook) {
+		return histograms[hook.ordinal()];
+	}
+
+	/** Discards all recorded calls. */
+	public void reset() {
+		for (final Histogram histogram : histograms) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * Formats the recorded metrics as a table, with one line per interception
+	 * point that was called.
+	 */
+	public String report() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%-26s %10s %12s %12s %12s %12s %12s%n", "hook",
+			"count", "mean (us)", "p50 (us)", "p99 (us)", "max (us)", "total (ms)"));
+		for (final Hook hook : Hook.values()) {
+			final Histogram h = getHistogram(hook);
+			final long count = h.getCount();
+			if (count == 0) continue;
+			sb.append(String.format("%-26s %10d %12.1f %12.1f %12.1f %12.1f %12.1f%n",
+				hook.getMethodName(), count, h.getMeanNanos() / 1e3, //
+				h.getValueAtPercentile(50) / 1e3, h.getValueAtPercentile(99) / 1e3,
+				h.getMaxNanos() / 1e3, h.getTotalNanos() / 1e6));
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return report();
+	}
+
+	/**
+	 * A histogram of latencies in nanoseconds.
+	 * <p>
+	 * Like an HdrHistogram, values are counted in buckets whose width grows
+	 * with the magnitude of the value, so that any recorded value is known
+	 * within about 6% of its magnitude, from nanoseconds to centuries, using a
+	 * fixed amount of memory.
+	 * </p>
+	 */
+	public static class Histogram {
+
+		/** Each power of two is split into 2^SUB_BITS buckets. */
+		private static final int SUB_BITS = 4;
+
+		private static final int SUB_COUNT = 1 << SUB_BITS;
+
+		private static final int BUCKET_COUNT = (64 - SUB_BITS) * SUB_COUNT;
+
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong total = new AtomicLong();
+		private final AtomicLong max = new AtomicLong();
+
+		/** Records the given latency. */
+		public void record(final long nanos) {
+			final long value = Math.max(0, nanos);
+			buckets.incrementAndGet(bucket(value));
+			count.incrementAndGet();
+			total.addAndGet(value);
+			long m = max.get();
+			while (value > m && !max.compareAndSet(m, value)) {
+				m = max.get();
+			}
+		}
+
+		/** Gets the number of recorded latencies. */
+		public long getCount() {
+			return count.get();
+		}
+
+		/** Gets the sum of the recorded latencies. */
+		public long getTotalNanos() {
+			return total.get();
+		}
+
+		/** Gets the largest recorded latency. */
+		public long getMaxNanos() {
+			return max.get();
+		}
+
+		/** Gets the mean of the recorded latencies. */
+		public double getMeanNanos() {
+			final long n = getCount();
+			return n == 0 ? 0 : (double) getTotalNanos() / n;
+		}
+
+		/**
+		 * Gets the latency below which the given percentage of the recorded
+		 * latencies fall, as the upper bound of the bucket containing it.
+		 */
+		public long getValueAtPercentile(final double percentile) {
+			final long n = getCount();
+			if (n == 0) return 0;
+			final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+			long seen = 0;
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				seen += buckets.get(i);
+				if (seen >= rank) return Math.min(upperBound(i), getMaxNanos());
+			}
+			return getMaxNanos();
+		}
+
+		/** Discards all recorded latencies. */
+		public void reset() {
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				buckets.set(i, 0);
+			}
+			count.set(0);
+			total.set(0);
+			max.set(0);
+		}
+
+		// -- Helper methods --
+
+		private static int bucket(final long value) {
+			if (value < SUB_COUNT) return (int) value;
+			final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+			final int sub = (int) (value >>> (magnitude - SUB_BITS)) & (SUB_COUNT - 1);
+			return (magnitude - SUB_BITS + 1) * SUB_COUNT + sub;
+		}
+
+		private static long upperBound(final int bucket) {
+			if (bucket < SUB_COUNT) return bucket;
+			final int shift = bucket / SUB_COUNT - 1;
+			final long sub = bucket % SUB_COUNT;
+			final long lower = (SUB_COUNT | sub) << shift;
+			return lower + (1L << shift) - 1;
+		}
+	}
+
+}
@@ -64,7 +64,6 @@ import java.awt.MenuItem;
 import java.awt.Panel;
 import java.awt.Window;
 import java.io.File;
-import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -74,11 +73,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import javax.imageio.ImageIO;
 import javax.swing.SwingUtilities;
@@ -102,8 +105,8 @@ import org.scijava.platform.event.AppPreferencesEvent;
 import org.scijava.platform.event.AppQuitEvent;
 import org.scijava.plugin.Parameter;
 import org.scijava.script.ScriptService;
+import org.scijava.thread.ThreadService;
 import org.scijava.ui.swing.laf.SwingLookAndFeelService;
-import org.scijava.util.Types;
 
 /**
  * A helper class to interact with ImageJ 1.x.
@@ -128,6 +131,9 @@ public class IJ1Helper extends AbstractContextual {
 	@Parameter
 	private LogService log;
 
+	@Parameter(required = false)
+	private ThreadService threadService;
+
 	/** Search bar in the main window. */
 	private Object searchBar;
 
@@ -146,7 +152,13 @@ public class IJ1Helper extends AbstractContextual {
 		// initialize legacy ImageJ application
 		final ImageJ ij1 = IJ.getInstance();
 
+		final StartupTimeline timeline = legacyService.getStartupTimeline();
+
+		// decode the application icon in the background
+		final Future<Image> iconImage = ij1 == null ? null : readIconImage();
+
 		// add the quick search bar
+		final StartupTimeline.Phase searchPhase = timeline.begin("searchBar");
 		try {
 			searchBar = new SearchBarHacker(getContext()).addSearchBar(ij1, this);
 		}
@@ -154,8 +166,10 @@ public class IJ1Helper extends AbstractContextual {
 			// NB: Do not let this crash ImageJ on startup!
 			log.error(t);
 		}
+		searchPhase.end();
 
 		// add the task monitor icon
+		final StartupTimeline.Phase taskPhase = timeline.begin("taskBar");
 		try {
 			taskBar = new TaskMonitorButtonHacker(getContext()).addTaskBar(ij1);
 		}
@@ -163,6 +177,7 @@ public class IJ1Helper extends AbstractContextual {
 			// NB: Do not let this crash ImageJ on startup!
 			log.error(t);
 		}
+		taskPhase.end();
 
 		if (getCommands() == null) {
 			IJ.runPlugIn("ij.IJ.init", "");
@@ -187,20 +202,23 @@ public class IJ1Helper extends AbstractContextual {
 			SwingUtilities.invokeLater(() ->
 				Thread.currentThread().setContextClassLoader(IJ.getClassLoader()));
 
+			final StartupTimeline.Phase imagesPhase = //
+				timeline.begin("registerLegacyImages");
 			final LegacyImageMap imageMap = legacyService.getImageMap();
 			for (int i = 1; i <= WindowManager.getImageCount(); i++) {
 				imageMap.registerLegacyImage(WindowManager.getImage(i));
 			}
+			imagesPhase.end();
 
 			// set icon and title of main window (which are instantiated before the
 			// initializer is called)
+			final StartupTimeline.Phase iconPhase = timeline.begin("appIcon");
 			try {
 				final LegacyHooks hooks = //
 					(LegacyHooks) IJ.class.getField("_hooks").get(null);
 				ij1.setTitle(hooks.getAppName());
-				final URL iconURL = hooks.getIconURL();
-				if (iconURL != null) try {
-					final Image image = ImageIO.read(iconURL);
+				final Image image = iconImage == null ? null : iconImage.get();
+				if (image != null) {
 					ij1.setIconImage(image);
 					if (IJ.isMacOSX()) try {
 						// NB: We also need to set the dock icon
@@ -212,13 +230,14 @@ public class IJ1Helper extends AbstractContextual {
 						t.printStackTrace();
 					}
 				}
-				catch (final IOException e) {
-					IJ.handleException(e);
-				}
+			}
+			catch (final ExecutionException e) {
+				IJ.handleException(e.getCause());
 			}
 			catch (final Throwable t) {
 				t.printStackTrace();
 			}
+			iconPhase.end();
 
 			// FIXME: handle window location via LegacyUI
 			// This is necessary because the ImageJ 1.x window will not set its
@@ -516,6 +535,29 @@ public class IJ1Helper extends AbstractContextual {
 		new Opener().openAndAddToRecent(file.getAbsolutePath());
 	}
 
+	/**
+	 * Opens several images as one batch, reading them concurrently where the
+	 * legacy openers support it, and adds the paths to the <i>File&gt;Open
+	 * Recent</i> menu.
+	 *
+	 * @param paths the images to open
+	 */
+	public void openAllAndAddToRecent(final List<String> paths) {
+		final List<String> absolute = new ArrayList<>(paths.size());
+		for (final String path : paths) {
+			absolute.add(new File(path).getAbsolutePath());
+		}
+		final List<Object> results = legacyService.openAll(absolute);
+		for (int i = 0; i < absolute.size(); i++) {
+			final Object result = results.get(i);
+			// NB: A legacy opener declines a path by returning null or the path.
+			if (result == null || absolute.get(i).equals(result)) {
+				// not handled by the legacy openers; let ImageJ 1.x open it
+				openAndAddToRecent(new File(absolute.get(i)));
+			}
+		}
+	}
+
 	/**
 	 * Records an option in ImageJ 1.x's macro recorder, <em>safely</em>.
 	 * <p>
@@ -804,6 +846,21 @@ public class IJ1Helper extends AbstractContextual {
 
 	private boolean menuInitialized;
 
+	/** Wrapper for inserting modules into the ImageJ1 menu bar. */
+	private IJ1MenuWrapper menuWrapper;
+
+	/** Menu items created for modern modules, keyed on module identifier. */
+	private final Map<String, MenuItem> moduleMenuItems = new HashMap<>();
+
+	/** ImageJ1 commands overridden by modern modules, keyed on label. */
+	private final Map<String, String> overriddenCommands = new HashMap<>();
+
+	/**
+	 * Modules inserted into the ImageJ1 menus, keyed on module identifier, in
+	 * the order of insertion.
+	 */
+	private final Map<String, ModuleInfo> menuModules = new LinkedHashMap<>();
+
 	@SuppressWarnings("unchecked")
 	public Hashtable<String, String> getCommands() {
 		return Menus.getCommands();
@@ -866,14 +923,13 @@ public class IJ1Helper extends AbstractContextual {
 		if (menuInitialized) return;
 		final Map<String, ModuleInfo> modules = //
 			legacyService.getScriptsAndNonLegacyCommands();
-		final Hashtable<String, String> ij1Commands = getCommands();
 		final ImageJ ij1 = hasInstance() ? IJ.getInstance() : null;
-		final IJ1MenuWrapper wrapper = ij1 == null ? null : new IJ1MenuWrapper(ij1, log);
+		menuWrapper = ij1 == null ? null : new IJ1MenuWrapper(ij1, log);
 		class Item implements Comparable<Item> {
 
 			private double weight;
 			private MenuPath path;
-			private String name, identifier;
+			private String identifier;
 			private ModuleInfo info;
 
 			@Override
@@ -901,12 +957,9 @@ public class IJ1Helper extends AbstractContextual {
 			final ModuleInfo info = entry.getValue();
 			final MenuEntry leaf = info.getMenuPath().getLeaf();
 			if (leaf == null) continue;
-			final MenuPath path = info.getMenuPath();
-			final String name = leaf.getName();
 			final Item item = new Item();
 			item.weight = leaf.getWeight();
-			item.path = path;
-			item.name = name;
+			item.path = info.getMenuPath();
 			item.identifier = key;
 			item.info = info;
 			items.add(item);
@@ -914,35 +967,165 @@ public class IJ1Helper extends AbstractContextual {
 		// sort by menu weight, then alphabetically
 		Collections.sort(items);
 		for (final Item item : items) {
-			if (ij1Commands.containsKey(item.name)) {
-				String jarPath;
-				try {
-					final URL location = Types.location(item.info.loadDelegateClass());
-					jarPath = location == null ? "<unknown>" : location.toString();
-				}
-				catch (final ClassNotFoundException exc) {
-					log.error(exc);
-					jarPath = "<error>";
-				}
-				log.info("Overriding " + item.name + //
-					"; identifier: " + item.identifier + //
-					"; jar: " + jarPath);
-				if (wrapper != null) try {
-					wrapper.create(item.path, true);
-				}
-				catch (final Throwable t) {
-					log.error(t);
-				}
+			insertMenuItem(item.identifier, item.info);
+		}
+		menuInitialized = true;
+	}
+
+	/** Gets whether {@link #addMenuItems()} has populated the menus yet. */
+	public synchronized boolean isMenuInitialized() {
+		return menuInitialized;
+	}
+
+	/**
+	 * Re-adds the legacy-compatible scripts and commands to the ImageJ1 menu
+	 * structure, after ImageJ1 rebuilt its menus from scratch (e.g., via
+	 * <i>Help&gt;Refresh Menus</i>), discarding the menu items created by
+	 * {@link #addMenuItems()}.
+	 * <p>
+	 * The modules are re-inserted in their original order, as kept up to date
+	 * by {@link #addMenuItem} and {@link #removeMenuItem}, without looking them
+	 * up again.
+	 * </p>
+	 */
+	public synchronized void refreshMenuItems() {
+		if (!menuInitialized) return;
+		final ImageJ ij1 = hasInstance() ? IJ.getInstance() : null;
+		menuWrapper = ij1 == null ? null : new IJ1MenuWrapper(ij1, log);
+		moduleMenuItems.clear();
+		overriddenCommands.clear();
+		for (final Entry<String, ModuleInfo> entry : new ArrayList<>(menuModules
+			.entrySet()))
+		{
+			insertMenuItem(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Adds a single legacy-compatible script or command to the ImageJ1 menu
+	 * structure, after the menus have been populated by {@link #addMenuItems()}.
+	 */
+	public void addMenuItem(final String identifier, final ModuleInfo info) {
+		if (info.getMenuPath().getLeaf() == null) return;
+		updateMenus(() -> {
+			synchronized (this) {
+				if (menuInitialized) insertMenuItem(identifier, info);
 			}
-			else if (wrapper != null) try {
-				wrapper.create(item.path, false);
+		});
+	}
+
+	/**
+	 * Removes a single script or command, previously added to the ImageJ1 menu
+	 * structure, restoring any ImageJ1 command it overrode.
+	 */
+	public void removeMenuItem(final String identifier, final ModuleInfo info) {
+		if (info.getMenuPath().getLeaf() == null) return;
+		updateMenus(() -> {
+			synchronized (this) {
+				if (menuInitialized) deleteMenuItem(identifier, info);
+			}
+		});
+	}
+
+	/**
+	 * Runs the given update of the ImageJ1 menus on the event dispatch thread,
+	 * as AWT requires. The update is not waited for, since the module events
+	 * triggering it may be published by a thread the EDT is waiting on.
+	 */
+	private void updateMenus(final Runnable update) {
+		final boolean hasMenus;
+		synchronized (this) {
+			hasMenus = menuWrapper != null;
+		}
+		if (!hasMenus || EventQueue.isDispatchThread()) update.run();
+		else EventQueue.invokeLater(update);
+	}
+
+	/**
+	 * Unregisters the given module from the ImageJ1 command table, and removes
+	 * its menu item (or restores the ImageJ1 command it overrode).
+	 */
+	private void deleteMenuItem(final String identifier,
+		final ModuleInfo info)
+	{
+		menuModules.remove(identifier);
+		final String name = info.getMenuPath().getLeaf().getName();
+		final Hashtable<String, String> ij1Commands = getCommands();
+		if (!identifier.equals(ij1Commands.get(name))) return; // not ours
+
+		final String overridden = overriddenCommands.remove(name);
+		if (overridden != null) ij1Commands.put(name, overridden);
+		else ij1Commands.remove(name);
+
+		final MenuItem item = moduleMenuItems.remove(identifier);
+		if (item != null && item.getParent() instanceof Menu) {
+			((Menu) item.getParent()).remove(item);
+		}
+	}
+
+	/**
+	 * Registers the given module in the ImageJ1 command table, and creates its
+	 * menu item (or reuses that of the ImageJ1 command it overrides).
+	 */
+	private void insertMenuItem(final String identifier,
+		final ModuleInfo info)
+	{
+		menuModules.put(identifier, info);
+		final MenuPath path = info.getMenuPath();
+		final String name = path.getLeaf().getName();
+		final Hashtable<String, String> ij1Commands = getCommands();
+		if (ij1Commands.containsKey(name)) {
+			if (log.isInfo()) {
+				log.info("Overriding " + name + //
+					"; identifier: " + identifier + //
+					"; jar: " + getJarPath(info));
+			}
+			final String command = ij1Commands.get(name);
+			if (!overriddenCommands.containsKey(name) &&
+				!identifier.equals(command))
+			{
+				overriddenCommands.put(name, command);
+			}
+			if (menuWrapper != null) try {
+				menuWrapper.create(path, true);
 			}
 			catch (final Throwable t) {
 				log.error(t);
 			}
-			ij1Commands.put(item.name, item.identifier);
 		}
-		menuInitialized = true;
+		else if (menuWrapper != null) try {
+			final MenuItem item = menuWrapper.create(path, false);
+			if (item != null) moduleMenuItems.put(identifier, item);
+		}
+		catch (final Throwable t) {
+			log.error(t);
+		}
+		ij1Commands.put(name, identifier);
+	}
+
+	/**
+	 * Gets the location of the JAR file from which the given module's delegate
+	 * class would be loaded.
+	 * <p>
+	 * The class file is looked up as a resource, rather than via
+	 * {@link ModuleInfo#loadDelegateClass()}, so that building the menus does
+	 * not trigger loading (and static initialization) of every overriding
+	 * command.
+	 * </p>
+	 */
+	private String getJarPath(final ModuleInfo info) {
+		final String className = info.getDelegateClassName();
+		if (className == null) return "<unknown>";
+		final URL url = Context.getClassLoader().getResource(//
+			className.replace('.', '/') + ".class");
+		if (url == null) return "<unknown>";
+		final String location = url.toString();
+		if (location.startsWith("jar:")) {
+			// strip the "jar:" prefix and the "!/path/to/Class.class" suffix
+			final int bang = location.indexOf("!/");
+			if (bang >= 0) return location.substring(4, bang);
+		}
+		return location;
 	}
 
 	/**
@@ -1118,6 +1301,7 @@ public class IJ1Helper extends AbstractContextual {
 		if (EventQueue.isDispatchThread()) {
 			throw new IllegalStateException("Cannot run macro from the EDT!");
 		}
+		legacyService.ensureCommandsInitialized();
 		final Thread thread = Thread.currentThread();
 		final String name = thread.getName();
 		try {
@@ -1404,6 +1588,31 @@ public class IJ1Helper extends AbstractContextual {
 
 	// -- Helper methods --
 
+	/**
+	 * Starts reading the application icon, so that the image can be decoded
+	 * while the rest of the user interface is set up.
+	 *
+	 * @return The {@link Future} of the decoded icon, or null if there is none.
+	 */
+	private Future<Image> readIconImage() {
+		final URL iconURL;
+		try {
+			final LegacyHooks hooks = //
+				(LegacyHooks) IJ.class.getField("_hooks").get(null);
+			iconURL = hooks.getIconURL();
+		}
+		catch (final Throwable t) {
+			t.printStackTrace();
+			return null;
+		}
+		if (iconURL == null) return null;
+		final Callable<Image> read = () -> ImageIO.read(iconURL);
+		if (threadService != null) return threadService.run(read);
+		final FutureTask<Image> task = new FutureTask<>(read);
+		task.run();
+		return task;
+	}
+
 	/** Closes all image windows on the event dispatch thread. */
 	private void closeImageWindows() {
 		// TODO: Consider using ThreadService#invoke to simplify this logic.
@@ -81,6 +81,17 @@ public class ImageJ2Options extends OptionsPlugin {
 		callback = "run")
 	private boolean sciJavaIO = false;
 
+	/**
+	 * If true, and {@link #isSciJavaIO()} is enabled, images are opened as
+	 * lazily loaded cell images: they are displayed as soon as their first plane
+	 * is available, while the remaining planes are loaded in the background.
+	 */
+	@Parameter(label = "Display images while loading (BETA!)",
+		description = "<html>Whether to display images opened with SCIFIO " +
+			"before they are fully loaded.<br>The remaining planes are loaded " +
+			"in the background.", callback = "run")
+	private boolean progressiveOpen = false;
+
 	@Parameter(label = "SciJava log level",
 		description = "<html>Log level for SciJava",
 		initializer = "initializeLogLevel", //
@@ -152,6 +163,10 @@ public class ImageJ2Options extends OptionsPlugin {
 		return sciJavaIO;
 	}
 
+	public boolean isProgressiveOpen() {
+		return progressiveOpen;
+	}
+
 	@SuppressWarnings("unused")
 	private void help() {
 		if (welcomeService != null) {
@@ -0,0 +1,143 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.scijava.thread.ThreadService;
+
+/**
+ * Runs the independent phases of the legacy layer's initialization
+ * concurrently, respecting the dependencies between them.
+ * <p>
+ * Each task is named, and may declare the names of previously submitted tasks
+ * it depends on; it will not begin until they have completed. Tasks are timed
+ * as phases of the given {@link StartupTimeline}.
+ * </p>
+ * <p>
+ * Tasks must not touch AWT or Swing, nor wait on the event dispatch thread:
+ * the thread which submits them may itself be the EDT, and will block when
+ * retrieving their results via {@link #get(Future)}.
+ * </p>
+ */
+class InitScheduler {
+
+	/** Thread service used to run tasks, or null to run them immediately. */
+	private final ThreadService threadService;
+
+	private final StartupTimeline timeline;
+
+	private final Map<String, Future<?>> tasks = new HashMap<>();
+
+	/**
+	 * Creates a new scheduler.
+	 *
+	 * @param threadService The thread service used to run tasks concurrently,
+	 *          or null to run each task synchronously as soon as it is submitted.
+	 * @param timeline The timeline on which to record each task.
+	 */
+	InitScheduler(final ThreadService threadService,
+		final StartupTimeline timeline)
+	{
+		this.threadService = threadService;
+		this.timeline = timeline;
+	}
+
+	/**
+	 * Submits a task for execution.
+	 *
+	 * @param name The name of the task, used for dependency declarations and as
+	 *          its phase name in the startup timeline.
+	 * @param task The work to perform.
+	 * @param dependencies Names of previously submitted tasks which must
+	 *          complete before this one begins.
+	 * @return The {@link Future} of the task's result.
+	 * @throws IllegalArgumentException if a dependency has not been submitted.
+	 */
+	<T> Future<T> submit(final String name, final Callable<T> task,
+		final String... dependencies)
+	{
+		final List<Future<?>> deps = new ArrayList<>();
+		for (final String dependency : dependencies) {
+			final Future<?> dep = tasks.get(dependency);
+			if (dep == null) {
+				throw new IllegalArgumentException("Unknown task: " + dependency);
+			}
+			deps.add(dep);
+		}
+		final Callable<T> timed = () -> {
+			for (final Future<?> dep : deps)
+				dep.get();
+			final StartupTimeline.Phase phase = timeline.begin(name);
+			try {
+				return task.call();
+			}
+			finally {
+				phase.end();
+			}
+		};
+		final Future<T> future;
+		if (threadService == null) {
+			final FutureTask<T> futureTask = new FutureTask<>(timed);
+			futureTask.run();
+			future = futureTask;
+		}
+		else future = threadService.run(timed);
+		tasks.put(name, future);
+		return future;
+	}
+
+	/**
+	 * Waits for the given task to complete, rethrowing any exception it threw.
+	 */
+	<T> T get(final Future<T> future) {
+		try {
+			return future.get();
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(exc);
+		}
+		catch (final ExecutionException exc) {
+			final Throwable cause = exc.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new RuntimeException(cause);
+		}
+	}
+
+}
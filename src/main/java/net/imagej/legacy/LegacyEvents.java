@@ -0,0 +1,265 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Emits Java Flight Recorder events for the expensive operations of the legacy
+ * layer: running commands and macros, opening files, and translating images
+ * between ImageJ 1.x and ImageJ2.
+ * <p>
+ * Each event records a name (command, macro or path), the dimensions and size
+ * in bytes of the image involved, if any, and the duration of the operation.
+ * The event types are defined at runtime via {@code jdk.jfr.EventFactory}, so
+ * that this class works on every supported Java version: where there is no
+ * Flight Recorder, {@link #begin(Type)} simply returns {@code null}. It also
+ * does so when no recording is running for the given type, so that the cost
+ * is negligible when recording is off.
+ * </p>
+ * <p>
+ * Typical usage:
+ * </p>
+ *
+ * <pre>
+ * final LegacyEvents.Event event = LegacyEvents.begin(Type.COMMAND);
+ * try {
+ * 	...
+ * }
+ * finally {
+ * 	LegacyEvents.commit(event, className);
+ * }
+ * </pre>
+ */
+public final class LegacyEvents {
+
+	/** The kinds of events emitted by the legacy layer. */
+	public enum Type {
+			COMMAND("Legacy Command", "An ImageJ 1.x command run via LegacyCommand"),
+			COMPATIBLE_COMMAND("Legacy-Compatible Command",
+				"An ImageJ2 command run from the ImageJ 1.x user interface"),
+			UPDATE_DISPLAY("Update Display",
+				"Harmonization of an ImageJ2 display with its ImageJ 1.x image"),
+			UPDATE_LEGACY_IMAGE("Update Legacy Image",
+				"Harmonization of an ImageJ 1.x image with its ImageJ2 display"),
+			REGISTER_DISPLAY("Register Display",
+				"Creation of an ImageJ 1.x image for an ImageJ2 display"),
+			REGISTER_LEGACY_IMAGE("Register Legacy Image",
+				"Creation of an ImageJ2 display for an ImageJ 1.x image"),
+			MACRO("Macro", "Evaluation of an ImageJ 1.x macro"), //
+			OPEN("Legacy Open", "Opening of a file via the legacy opener");
+
+		private final String label;
+		private final String description;
+
+		private Type(final String label, final String description) {
+			this.label = label;
+			this.description = description;
+		}
+
+		/** Gets the name of the JFR event type, e.g. {@code imagej.legacy.Macro}. */
+		public String getEventName() {
+			final StringBuilder sb = new StringBuilder("imagej.legacy.");
+			for (final String word : name().split("_")) {
+				sb.append(word.charAt(0)).append(word.substring(1).toLowerCase());
+			}
+			return sb.toString();
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+	}
+
+	/** An event in progress. */
+	public static final class Event {
+
+		private final Object jfrEvent;
+
+		private Event(final Object jfrEvent) {
+			this.jfrEvent = jfrEvent;
+		}
+	}
+
+	private static final int NAME = 0;
+	private static final int DIMENSIONS = 1;
+	private static final int BYTES = 2;
+
+	/** Per {@link Type}, the {@code jdk.jfr.EventFactory}, or null. */
+	private static final Object[] factories;
+
+	private static Method newEvent, isEnabled, getEventType;
+	private static Method begin, end, shouldCommit, set, commit;
+
+	static {
+		factories = new Object[Type.values().length];
+		try {
+			createFactories();
+		}
+		catch (final Throwable t) {
+			// NB: No Flight Recorder in this JVM; no events will be emitted.
+			Arrays.fill(factories, null);
+		}
+	}
+
+	private LegacyEvents() {
+		// prevent instantiation of utility class
+	}
+
+	/** Gets whether this JVM supports emitting the legacy events. */
+	public static boolean isAvailable() {
+		return factories[0] != null;
+	}
+
+	/**
+	 * Starts timing an event of the given type.
+	 *
+	 * @return the event, to be passed to one of the {@code commit} methods, or
+	 *         null if no recording is interested in the event.
+	 */
+	public static Event begin(final Type type) {
+		final Object factory = factories[type.ordinal()];
+		if (factory == null) return null;
+		try {
+			if (!(Boolean) isEnabled.invoke(getEventType.invoke(factory))) {
+				return null;
+			}
+			final Object jfrEvent = newEvent.invoke(factory);
+			begin.invoke(jfrEvent);
+			return new Event(jfrEvent);
+		}
+		catch (final Exception exc) {
+			return null;
+		}
+	}
+
+	/** Ends the given event, which may be null, and commits it. */
+	public static void commit(final Event event, final String name) {
+		commit(event, name, null, -1);
+	}
+
+	/**
+	 * Ends the given event, which may be null, and commits it.
+	 *
+	 * @param event The event returned by {@link #begin(Type)}.
+	 * @param name The name of the command, macro or file.
+	 * @param dimensions The dimensions of the image involved, or null.
+	 * @param bytes The size of the image involved, or -1 if unknown.
+	 */
+	public static void commit(final Event event, final String name,
+		final int[] dimensions, final long bytes)
+	{
+		if (event == null) return;
+		try {
+			end.invoke(event.jfrEvent);
+			if (!(Boolean) shouldCommit.invoke(event.jfrEvent)) return;
+			set.invoke(event.jfrEvent, NAME, name);
+			set.invoke(event.jfrEvent, DIMENSIONS, format(dimensions));
+			set.invoke(event.jfrEvent, BYTES, bytes);
+			commit.invoke(event.jfrEvent);
+		}
+		catch (final Exception exc) {
+			// NB: Never let diagnostics break the actual operation.
+		}
+	}
+
+	// -- Helper methods --
+
+	private static String format(final int[] dimensions) {
+		if (dimensions == null) return null;
+		final StringBuilder sb = new StringBuilder();
+		for (final int d : dimensions) {
+			if (sb.length() > 0) sb.append("x");
+			sb.append(d);
+		}
+		return sb.toString();
+	}
+
+	private static void createFactories() throws Exception {
+		final ClassLoader loader = ClassLoader.getSystemClassLoader();
+		final Class<?> factoryClass = loader.loadClass("jdk.jfr.EventFactory");
+		final Class<?> eventClass = loader.loadClass("jdk.jfr.Event");
+		final Class<?> eventTypeClass = loader.loadClass("jdk.jfr.EventType");
+		final Class<?> annotationClass =
+			loader.loadClass("jdk.jfr.AnnotationElement");
+		final Class<?> valueClass = loader.loadClass("jdk.jfr.ValueDescriptor");
+
+		newEvent = factoryClass.getMethod("newEvent");
+		getEventType = factoryClass.getMethod("getEventType");
+		isEnabled = eventTypeClass.getMethod("isEnabled");
+		begin = eventClass.getMethod("begin");
+		end = eventClass.getMethod("end");
+		shouldCommit = eventClass.getMethod("shouldCommit");
+		set = eventClass.getMethod("set", int.class, Object.class);
+		commit = eventClass.getMethod("commit");
+
+		final Constructor<?> annotation =
+			annotationClass.getConstructor(Class.class, Object.class);
+		final Constructor<?> value = valueClass.getConstructor(Class.class,
+			String.class, List.class);
+		final Method create =
+			factoryClass.getMethod("create", List.class, List.class);
+		final Class<?> nameClass = loader.loadClass("jdk.jfr.Name");
+		final Class<?> labelClass = loader.loadClass("jdk.jfr.Label");
+		final Class<?> descriptionClass = loader.loadClass("jdk.jfr.Description");
+		final Class<?> categoryClass = loader.loadClass("jdk.jfr.Category");
+		final Class<?> dataAmountClass = loader.loadClass("jdk.jfr.DataAmount");
+
+		final List<Object> fields = new ArrayList<>();
+		fields.add(value.newInstance(String.class, "name", Collections
+			.singletonList(annotation.newInstance(labelClass, "Name"))));
+		fields.add(value.newInstance(String.class, "dimensions", Collections
+			.singletonList(annotation.newInstance(labelClass, "Dimensions"))));
+		fields.add(value.newInstance(long.class, "bytes", Arrays.asList(annotation
+			.newInstance(labelClass, "Bytes"), annotation.newInstance(
+				dataAmountClass, "BYTES"))));
+
+		final String[] category = { "ImageJ", "Legacy" };
+		for (final Type type : Type.values()) {
+			final List<Object> annotations = new ArrayList<>();
+			annotations.add(annotation.newInstance(nameClass, type.getEventName()));
+			annotations.add(annotation.newInstance(labelClass, type.getLabel()));
+			annotations.add(annotation.newInstance(descriptionClass, type
+				.getDescription()));
+			annotations.add(annotation.newInstance(categoryClass, category));
+			factories[type.ordinal()] = create.invoke(null, annotations, fields);
+		}
+	}
+
+}
@@ -30,23 +30,35 @@
 package net.imagej.legacy;
 
 import ij.ImagePlus;
+import ij.ImageStack;
 import ij.WindowManager;
 import ij.gui.ImageWindow;
 import ij.gui.Roi;
 
+import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import net.imagej.Data;
 import net.imagej.Dataset;
+import net.imagej.ImgPlus;
 import net.imagej.display.ImageDisplay;
 import net.imagej.display.ImageDisplayService;
+import net.imagej.legacy.LegacyEvents.Event;
+import net.imagej.legacy.LegacyEvents.Type;
 import net.imagej.legacy.convert.TableListWrapper;
+import net.imagej.legacy.translate.CachingVirtualStack;
+import net.imagej.legacy.translate.ColorChannelPlanes;
+import net.imagej.legacy.translate.ConvertedStack;
 import net.imagej.legacy.translate.Harmonizer;
 import net.imagej.legacy.translate.ImageTranslator;
 import net.imagej.legacy.translate.LegacyUtils;
@@ -61,11 +73,13 @@ import org.scijava.AbstractContextual;
 import org.scijava.convert.ConvertService;
 import org.scijava.display.Display;
 import org.scijava.display.DisplayService;
+import org.scijava.display.event.DisplayActivatedEvent;
 import org.scijava.display.event.DisplayDeletedEvent;
 import org.scijava.display.event.DisplayUpdatedEvent;
 import org.scijava.event.EventHandler;
 import org.scijava.plugin.Parameter;
 import org.scijava.table.Table;
+import org.scijava.ui.UIService;
 import org.scijava.ui.viewer.DisplayWindow;
 
 /**
@@ -87,6 +101,15 @@ import org.scijava.ui.viewer.DisplayWindow;
  * In the case of multiple {@link Dataset}s in a single {@link ImageDisplay},
  * only the first {@link Dataset} is translated to the {@link ImagePlus}.
  * </p>
+ * <p>
+ * In modern mode, the {@link ImagePlus}es of displays which are neither
+ * visible nor active become reclaimable once the bytes held by all mappings
+ * exceed {@link #getMaxBytes()}, least recently used first. They are then only
+ * softly referenced, and are recreated on demand by
+ * {@link #lookupImagePlus(ImageDisplay)} if they have been garbage collected.
+ * Changes made to their pixels by legacy ImageJ are harmonized back to the
+ * {@link Dataset} before, so that they are not lost.
+ * </p>
  * 
  * @author Curtis Rueden
  * @author Barry DeZonia
@@ -98,6 +121,28 @@ public class LegacyImageMap extends AbstractContextual {
 	 */
 	public static final String IMP_KEY = "ij1-image-plus";
 
+	/**
+	 * System property enabling the batch profile; see {@link #isBatchProfile()}.
+	 */
+	public static final String BATCH_PROFILE_PROPERTY =
+		"imagej.legacy.batchProfile";
+
+	/**
+	 * System property specifying the number of bytes the {@link ImagePlus}es of
+	 * modern mode mappings may hold before inactive ones become reclaimable.
+	 */
+	public static final String MAX_BYTES_PROPERTY =
+		"imagej.legacy.imageMap.maxBytes";
+
+	/**
+	 * Key linking an {@link ImagePlus} to the bare {@link Dataset} created for
+	 * it in the batch profile, and back. The {@code ImagePlus} property holds the
+	 * {@code Dataset}, while the {@code Dataset} property holds only a
+	 * {@link WeakReference} to the {@code ImagePlus}, so that the pair is
+	 * garbage collected together once the {@code ImagePlus} is dropped.
+	 */
+	private static final String DATASET_KEY = "ij2-batch-dataset";
+
 	static {
 		/*
 		 * We absolutely require that the LegacyInjector did its job before we
@@ -147,6 +192,44 @@ public class LegacyImageMap extends AbstractContextual {
 	private final Map<ImageDisplay, WeakReference<ImagePlus>> legacyImagePlusTable =
 		new WeakHashMap<>();
 
+	/**
+	 * Modern mode mappings whose {@link ImagePlus} was made reclaimable to stay
+	 * within {@link #getMaxBytes()}. The displays are still known, but their
+	 * {@code ImagePlus} is only softly referenced.
+	 */
+	private final Map<ImageDisplay, SoftReference<ImagePlus>> reclaimableImagePlusTable =
+		new ConcurrentHashMap<>();
+
+	/**
+	 * Reverse mapping of {@link #reclaimableImagePlusTable}, weak in the
+	 * {@link ImagePlus} keys.
+	 */
+	private final Map<ImagePlus, ImageDisplay> reclaimableDisplayTable =
+		new WeakHashMap<>();
+
+	/**
+	 * The displays of {@link #imagePlusTable}, least recently used first, with
+	 * the bytes held by their {@link ImagePlus} as of its mapping.
+	 */
+	private final LinkedHashMap<ImageDisplay, Long> recentDisplays =
+		new LinkedHashMap<>(16, 0.75f, true);
+
+	/** The sum of the bytes in {@link #recentDisplays}; guarded by it. */
+	private long bytesHeld;
+
+	private volatile long maxBytes = getDefaultMaxBytes();
+
+	/** Whether the batch profile is enabled. */
+	private volatile boolean batchProfile = Boolean.getBoolean(
+		BATCH_PROFILE_PROPERTY);
+
+	/**
+	 * Modern mode displays whose visual state was not harmonized in the batch
+	 * profile; it is caught up with once they are activated.
+	 */
+	private final Set<ImageDisplay> staleDisplays = Collections.newSetFromMap(
+		new WeakHashMap<>());
+
 	/**
 	 * Effectively a {@code WeakHashSet} for tracking known {@link ImagePlus}es.
 	 */
@@ -193,24 +276,33 @@ public class LegacyImageMap extends AbstractContextual {
 		if (imp == null) return null;
 		ImageDisplay display;
 		if (legacyService.isLegacyMode()) display = legacyDisplayTable.get(imp);
-		else display = displayTable.get(imp);
+		else {
+			display = displayTable.get(imp);
+			if (display == null) {
+				synchronized (reclaimableDisplayTable) {
+					display = reclaimableDisplayTable.get(imp);
+				}
+			}
+		}
 		synchronizeAttachmentsToDataset(display, imp);
 		return display;
 	}
 
 	/**
 	 * Gets the {@link ImagePlus} corresponding to the given {@link ImageDisplay},
-	 * or null if there is no existing table entry.
+	 * or null if there is no existing table entry. If the {@code ImagePlus} was
+	 * made reclaimable and has been garbage collected since, it is recreated.
 	 */
 	public ImagePlus lookupImagePlus(final ImageDisplay display) {
 		if (display == null) return null;
-		ImagePlus imagePlus;
-		if (legacyService.isLegacyMode()) {
-			final WeakReference<ImagePlus> weakReference = legacyImagePlusTable.get(
-				display);
-			imagePlus = weakReference == null ? null : weakReference.get();
+		ImagePlus imagePlus = peekImagePlus(display);
+		if (imagePlus != null) {
+			if (!legacyService.isLegacyMode()) touch(display, imagePlus);
+		}
+		else if (reclaimableImagePlusTable.containsKey(display)) {
+			imagePlus = imageTranslator.createLegacyImage(display);
+			addMapping(display, imagePlus);
 		}
-		else imagePlus = imagePlusTable.get(display);
 		synchronizeAttachmentsToImagePlus(imagePlus, display);
 		return imagePlus;
 	}
@@ -240,6 +332,29 @@ public class LegacyImageMap extends AbstractContextual {
 		return imp;
 	}
 
+	/**
+	 * Creates a transient {@link ImagePlus} view of the given {@link Dataset},
+	 * sharing its planes. Unlike {@link #registerDataset(Dataset)}, no
+	 * {@link ImageDisplay} is created, no mapping is added, no ROIs or tables are
+	 * attached and the {@link WindowManager} is left alone, so changes to the
+	 * view's ROIs or properties are not reflected back to the {@code Dataset}.
+	 * <p>
+	 * Use this method to pass an image to a single legacy ImageJ call, e.g. once
+	 * per item in a loop. Converters to {@link ImagePlus} always register the
+	 * image instead.
+	 * </p>
+	 *
+	 * @return an unregistered {@link ImagePlus} wrapping the given
+	 *         {@link Dataset}.
+	 * @throws IllegalArgumentException if the planes of the {@link Dataset} are
+	 *           too large for legacy ImageJ, so that it could only be shown
+	 *           downsampled, as a copy; use {@link #registerDataset(Dataset)} or
+	 *           {@link ImageTranslator#createRegionImage} for those.
+	 */
+	public ImagePlus createView(final Dataset ds) {
+		return imageTranslator.createLegacyView(ds);
+	}
+
 	/**
 	 * Ensures that the given {@link ImageDisplay} has a corresponding
 	 * {@link ImagePlus}.
@@ -259,14 +374,21 @@ public class LegacyImageMap extends AbstractContextual {
 	public ImagePlus registerDisplay(final ImageDisplay display,
 		final boolean createLegacyMappings)
 	{
-		ImagePlus imp = lookupImagePlus(display);
-		if (imp == null) {
-			// mapping does not exist; mirror display to image window
-			imp = imageTranslator.createLegacyImage(display);
-			addMapping(display, imp, createLegacyMappings);
+		final Event event = LegacyEvents.begin(Type.REGISTER_DISPLAY);
+		ImagePlus imp = null;
+		try {
+			imp = lookupImagePlus(display);
+			if (imp == null) {
+				// mapping does not exist; mirror display to image window
+				imp = imageTranslator.createLegacyImage(display);
+				addMapping(display, imp, createLegacyMappings);
+			}
+			synchronizeAttachmentsToImagePlus(imp, display);
+			return imp;
+		}
+		finally {
+			commit(event, display.getName(), imp);
 		}
-		synchronizeAttachmentsToImagePlus(imp, display);
-		return imp;
 	}
 
 	/**
@@ -278,18 +400,117 @@ public class LegacyImageMap extends AbstractContextual {
 	 *         {@link ImageTranslator}.
 	 */
 	public ImageDisplay registerLegacyImage(final ImagePlus imp) {
-		ImageDisplay display = lookupDisplay(imp);
-		// It is possible that this method can get hit multiple times from the
-		// display that is being created by the imageTranslator. Thus we want to
-		// avoid an infinite loop.
-		if (display == null && !imagePluses.containsKey(imp)) {
-			imagePluses.put(imp, null);
-			// mapping does not exist; mirror ImagePlus to ImageDisplay
-			display = imageTranslator.createDisplay(imp);
-			addMapping(display, imp);
+		final Event event = LegacyEvents.begin(Type.REGISTER_LEGACY_IMAGE);
+		try {
+			ImageDisplay display = lookupDisplay(imp);
+			final Dataset dataset = display == null ? unlinkDataset(imp) : null;
+			if (dataset != null) {
+				// the batch profile deferred the display; show the existing Dataset
+				dataset.getProperties().put(IMP_KEY, imp);
+				display = imageTranslator.createDisplay(imp, dataset);
+				addMapping(display, imp);
+			}
+			// It is possible that this method can get hit multiple times from the
+			// display that is being created by the imageTranslator. Thus we want to
+			// avoid an infinite loop.
+			else if (display == null && !imagePluses.containsKey(imp)) {
+				imagePluses.put(imp, null);
+				// mapping does not exist; mirror ImagePlus to ImageDisplay
+				display = imageTranslator.createDisplay(imp);
+				addMapping(display, imp);
+			}
+			synchronizeAttachmentsToDataset(display, imp);
+			return display;
 		}
-		synchronizeAttachmentsToDataset(display, imp);
-		return display;
+		finally {
+			commit(event, imp.getTitle(), imp);
+		}
+	}
+
+	/**
+	 * Gets the {@link ImagePlus} corresponding to the given {@link Dataset}:
+	 * the one mapped to a display showing it, or the one a bare {@code Dataset}
+	 * was created for in the batch profile, or null if there is none.
+	 */
+	public ImagePlus lookupImagePlus(final Dataset dataset) {
+		if (dataset == null) return null;
+		for (final ImageDisplay display : getImageDisplays()) {
+			if (display.isDisplaying(dataset)) return lookupImagePlus(display);
+		}
+		final Object ref = dataset.getProperties().get(DATASET_KEY);
+		if (!(ref instanceof WeakReference)) return null;
+		final Object imp = ((WeakReference<?>) ref).get();
+		return imp instanceof ImagePlus && linkedDataset(
+			(ImagePlus) imp) == dataset ? (ImagePlus) imp : null;
+	}
+
+	/**
+	 * Ensures that the given {@link ImagePlus} has a corresponding
+	 * {@link Dataset}. In the batch profile, a bare {@code Dataset} with the
+	 * data and calibration of the {@code ImagePlus} is created, without an
+	 * {@link ImageDisplay}; otherwise, this is the active {@code Dataset} of
+	 * {@link #registerLegacyImage(ImagePlus)}.
+	 * <p>
+	 * If a display is requested for the {@code ImagePlus} later on, it shows
+	 * the same {@code Dataset}.
+	 * </p>
+	 *
+	 * @return the {@link Dataset} shadowing the given {@link ImagePlus}.
+	 */
+	public Dataset registerLegacyDataset(final ImagePlus imp) {
+		Dataset dataset = lookupDataset(imp);
+		if (dataset != null) return dataset;
+		if (!isBatchProfile()) {
+			return imageDisplayService.getActiveDataset(registerLegacyImage(imp));
+		}
+		final Event event = LegacyEvents.begin(Type.REGISTER_LEGACY_IMAGE);
+		try {
+			dataset = imageTranslator.createDataset(imp);
+			// NB: The Dataset must not reference its ImagePlus strongly, or the
+			// pair would never be garbage collected; see DATASET_KEY.
+			dataset.getProperties().remove(IMP_KEY);
+			dataset.getProperties().put(DATASET_KEY, new WeakReference<>(imp));
+			imp.setProperty(DATASET_KEY, dataset);
+			synchronizeAttachmentsToDataset(dataset, imp);
+			return dataset;
+		}
+		finally {
+			commit(event, imp.getTitle(), imp);
+		}
+	}
+
+	/**
+	 * Gets the {@link Dataset} corresponding to the given {@link ImagePlus}:
+	 * the active {@code Dataset} of its {@link ImageDisplay}, or the bare
+	 * {@code Dataset} created for it in the batch profile, or null if there is
+	 * none.
+	 */
+	public Dataset lookupDataset(final ImagePlus imp) {
+		if (imp == null) return null;
+		final ImageDisplay display = lookupDisplay(imp);
+		if (display != null) return imageDisplayService.getActiveDataset(display);
+		return linkedDataset(imp);
+	}
+
+	/**
+	 * Gets whether images are processed in the batch profile, in which
+	 * {@link #registerLegacyDataset(ImagePlus)} creates no
+	 * {@link ImageDisplay}s, and {@link Harmonizer}s only synchronize data and
+	 * calibration back. The profile is off unless enabled via
+	 * {@link #setBatchProfile(boolean)} or the {@value #BATCH_PROFILE_PROPERTY}
+	 * system property.
+	 */
+	public boolean isBatchProfile() {
+		return batchProfile;
+	}
+
+	/**
+	 * Enables or disables the batch profile.
+	 *
+	 * @see #isBatchProfile()
+	 */
+	public void setBatchProfile(final boolean batchProfile) {
+		this.batchProfile = batchProfile;
 	}
 
 	public synchronized void toggleLegacyMode(boolean enteringLegacyMode) {
@@ -311,7 +532,9 @@ public class LegacyImageMap extends AbstractContextual {
 			ImagePlus imp = lookupImagePlus(display);
 			if (imp == null) {
 				final Dataset ds = imageDisplayService.getActiveDataset(display);
-				if ( LegacyUtils.dimensionsIJ1Compatible(ds)) {
+				if (LegacyUtils.dimensionsIJ1Compatible(ds) ||
+					LegacyUtils.needsResolutionPyramid(ds))
+				{
 					// Ensure the mappings are registered in the legacy maps
 					imp = registerDisplay(display, true);
 					final ImageDisplayViewer viewer =
@@ -330,11 +553,17 @@ public class LegacyImageMap extends AbstractContextual {
 		}
 		imagePlusTable.clear();
 		displayTable.clear();
+		clearReclaimable();
+		synchronized (recentDisplays) {
+			recentDisplays.clear();
+			bytesHeld = 0;
+		}
 	}
 
 	private void leaveLegacyMode()
 	{
 		final Harmonizer harmonizer = new Harmonizer(legacyService.getContext(), imageTranslator);
+		harmonizer.setDisplayHarmonization(!isBatchProfile());
 		// migrate from legacyImagePlusTable and legacyDisplayTable to modern
 		// versions.
 		for (final ImagePlus imp : legacyDisplayTable.keySet()) {
@@ -351,6 +580,11 @@ public class LegacyImageMap extends AbstractContextual {
 				imagePlusTable.put(display, imp);
 				// Update the display
 				harmonizer.updateDisplay(display, imp);
+				if (!harmonizer.isDisplayHarmonization()) {
+					synchronized (staleDisplays) {
+						staleDisplays.add(display);
+					}
+				}
 			}
 		}
 		legacyDisplayTable.clear();
@@ -372,7 +606,7 @@ public class LegacyImageMap extends AbstractContextual {
 	 * delete the associated {@link ImagePlus}.
 	 */
 	public void unregisterDisplay(final ImageDisplay display, final boolean deleteImp) {
-		final ImagePlus imp = lookupImagePlus(display);
+		final ImagePlus imp = display == null ? null : peekImagePlus(display);
 		removeMapping(display, imp, deleteImp);
 		if (deleteImp && imp != null) imp.close();
 	}
@@ -396,7 +630,11 @@ public class LegacyImageMap extends AbstractContextual {
 		if (legacyService.isLegacyMode()) {
 			return legacyDisplayTable.values();
 		}
-		return imagePlusTable.keySet();
+		if (reclaimableImagePlusTable.isEmpty()) return imagePlusTable.keySet();
+		final Collection<ImageDisplay> displays =
+			new LinkedHashSet<>(imagePlusTable.keySet());
+		displays.addAll(reclaimableImagePlusTable.keySet());
+		return displays;
 	}
 
 	/**
@@ -412,8 +650,209 @@ public class LegacyImageMap extends AbstractContextual {
 		return displayTable.keySet();
 	}
 
+	/**
+	 * Gets the number of bytes held by the {@link ImagePlus}es of all modern mode
+	 * mappings which are not reclaimable, as of their mapping.
+	 */
+	public long getBytesHeld() {
+		synchronized (recentDisplays) {
+			return bytesHeld;
+		}
+	}
+
+	/**
+	 * Gets the number of bytes held by the {@link ImagePlus} mapped to the given
+	 * {@link ImageDisplay} as of its mapping, or 0 if there is none or it is
+	 * reclaimable.
+	 */
+	public long getBytesHeld(final ImageDisplay display) {
+		if (display == null) return 0;
+		synchronized (recentDisplays) {
+			final Long bytes = recentDisplays.get(display);
+			return bytes == null ? 0 : bytes;
+		}
+	}
+
+	/**
+	 * Gets the number of bytes the {@link ImagePlus}es of modern mode mappings
+	 * may hold before inactive ones become reclaimable.
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Sets the number of bytes the {@link ImagePlus}es of modern mode mappings
+	 * may hold before inactive ones become reclaimable, making them reclaimable
+	 * right away if the mappings already hold more than that.
+	 */
+	public void setMaxBytes(final long maxBytes) {
+		this.maxBytes = maxBytes;
+		reclaim(maxBytes);
+	}
+
+	/**
+	 * Makes the {@link ImagePlus}es of all modern mode mappings reclaimable whose
+	 * displays are neither visible nor active.
+	 *
+	 * @return the number of bytes which became reclaimable.
+	 */
+	public long reclaimInactive() {
+		return reclaim(0);
+	}
+
+	/**
+	 * Gets the default of {@link #getMaxBytes()}, as configured by the
+	 * {@value #MAX_BYTES_PROPERTY} system property, defaulting to a quarter of
+	 * the maximum heap size.
+	 */
+	public static long getDefaultMaxBytes() {
+		final String value = System.getProperty(MAX_BYTES_PROPERTY);
+		if (value != null) {
+			try {
+				return Long.parseLong(value);
+			}
+			catch (final NumberFormatException exc) {
+				// NB: Fall back to the default.
+			}
+		}
+		return Runtime.getRuntime().maxMemory() / 4;
+	}
+
 	// -- Helper methods --
 
+	/**
+	 * Gets the {@link ImagePlus} currently mapped to the given
+	 * {@link ImageDisplay}, without recreating reclaimed ones.
+	 */
+	private ImagePlus peekImagePlus(final ImageDisplay display) {
+		if (legacyService.isLegacyMode()) {
+			final WeakReference<ImagePlus> weakReference = legacyImagePlusTable.get(
+				display);
+			return weakReference == null ? null : weakReference.get();
+		}
+		final ImagePlus imagePlus = imagePlusTable.get(display);
+		if (imagePlus != null) return imagePlus;
+		final SoftReference<ImagePlus> softReference =
+			reclaimableImagePlusTable.get(display);
+		return softReference == null ? null : softReference.get();
+	}
+
+	/**
+	 * Marks the given modern mode mapping as recently used, taking it back from
+	 * the reclaimable ones if necessary.
+	 */
+	private void touch(final ImageDisplay display, final ImagePlus imp) {
+		if (imagePlusTable.get(display) != imp) {
+			addMapping(display, imp, false);
+			return;
+		}
+		synchronized (recentDisplays) {
+			recentDisplays.get(display);
+		}
+	}
+
+	/**
+	 * Makes the {@link ImagePlus}es of inactive modern mode mappings reclaimable,
+	 * least recently used first, until the others hold at most the given number
+	 * of bytes. Pixels changed by legacy ImageJ are harmonized back first.
+	 *
+	 * @return the number of bytes which became reclaimable.
+	 */
+	private long reclaim(final long limit) {
+		if (getBytesHeld() <= limit) return 0;
+		final List<Map.Entry<ImageDisplay, Long>> displays;
+		synchronized (recentDisplays) {
+			displays = new ArrayList<>(recentDisplays.entrySet());
+		}
+		final ImageDisplay activeDisplay =
+			imageDisplayService.getActiveImageDisplay();
+		final ImagePlus currentImage = WindowManager.getCurrentImage();
+		final UIService uiService = legacyService.uiService();
+		Harmonizer harmonizer = null;
+		long reclaimed = 0;
+		for (final Map.Entry<ImageDisplay, Long> entry : displays) {
+			if (getBytesHeld() <= limit) break;
+			final ImageDisplay display = entry.getKey();
+			final ImagePlus imp = imagePlusTable.get(display);
+			// NB: Images holding no bytes of their own are not worth reclaiming.
+			if (imp == null || entry.getValue() == 0 || display == activeDisplay ||
+				imp == currentImage || imp.isLocked() || imp.getWindow() != null ||
+				uiService != null && uiService.getDisplayViewer(display) != null)
+			{
+				continue;
+			}
+			if (imp.changes) {
+				// NB: The pixels are a copy; do not lose the changes made to them.
+				if (harmonizer == null) {
+					harmonizer =
+						new Harmonizer(legacyService.getContext(), imageTranslator);
+				}
+				harmonizer.updateDisplay(display, imp);
+				imp.changes = false;
+			}
+			imagePlusTable.remove(display);
+			displayTable.remove(imp);
+			final long held = forgetRecent(display);
+			synchronized (reclaimableDisplayTable) {
+				reclaimableDisplayTable.put(imp, display);
+			}
+			reclaimableImagePlusTable.put(display, new SoftReference<>(imp));
+			reclaimed += held;
+		}
+		return reclaimed;
+	}
+
+	/**
+	 * Removes the given display from {@link #recentDisplays}.
+	 *
+	 * @return the bytes which were recorded for it.
+	 */
+	private long forgetRecent(final ImageDisplay display) {
+		synchronized (recentDisplays) {
+			final Long bytes = recentDisplays.remove(display);
+			if (bytes == null) return 0;
+			bytesHeld -= bytes;
+			return bytes;
+		}
+	}
+
+	/** Forgets all reclaimable modern mode mappings. */
+	private void clearReclaimable() {
+		reclaimableImagePlusTable.clear();
+		synchronized (reclaimableDisplayTable) {
+			reclaimableDisplayTable.clear();
+		}
+	}
+
+	/**
+	 * Gets the number of bytes held by the {@link ImagePlus} of the given
+	 * {@link ImageDisplay} on its own, i.e. which are not shared with the
+	 * {@link Dataset} it mirrors: the planes copied from the dataset. The
+	 * cached planes of a {@link CachingVirtualStack} do not count, since they
+	 * are bounded by the budget of the shared plane cache.
+	 */
+	private long bytesHeld(final ImageDisplay display, final ImagePlus imp) {
+		final ImageStack stack = imp.getStack();
+		if (stack instanceof ConvertedStack) return LegacyUtils.sizeInBytes(imp);
+		if (stack.isVirtual()) return 0;
+		// NB: The dataset wraps the planes of other stacks, unless it holds a
+		// materialized copy of their color channels.
+		final Dataset ds = imageDisplayService.getActiveDataset(display);
+		return ds != null && ColorChannelPlanes.isMaterialized(ds.getImgPlus())
+			? LegacyUtils.sizeInBytes(imp) : 0;
+	}
+
+	/** Commits a flight recorder event describing the given image, if any. */
+	private static void commit(final Event event, final String name,
+		final ImagePlus imp)
+	{
+		if (event == null) return;
+		if (imp == null) LegacyEvents.commit(event, name);
+		else LegacyEvents.commit(event, name, imp.getDimensions(), LegacyUtils
+			.sizeInBytes(imp));
+	}
+
 	/**
 	 * Creates a mapping between a given {@link ImageDisplay} and
 	 * {@link ImagePlus}.
@@ -449,11 +888,30 @@ public class LegacyImageMap extends AbstractContextual {
 		else {
 			final ImagePlus toRemove = imagePlusTable.remove(display);
 			if (toRemove != null) displayTable.remove(toRemove);
+			removeReclaimable(display);
 			imagePlusTable.put(display, imp);
 			displayTable.put(imp, display);
+			final long bytes = bytesHeld(display, imp);
+			synchronized (recentDisplays) {
+				final Long old = recentDisplays.put(display, bytes);
+				bytesHeld += bytes - (old == null ? 0 : old);
+			}
 		}
 
 		clearImagePlusKey(display);
+		if (!createLegacyMappings) reclaim(maxBytes);
+	}
+
+	/** Forgets the reclaimable mapping of the given {@link ImageDisplay}. */
+	private void removeReclaimable(final ImageDisplay display) {
+		final SoftReference<ImagePlus> softReference =
+			reclaimableImagePlusTable.remove(display);
+		final ImagePlus imp = softReference == null ? null : softReference.get();
+		if (imp != null) {
+			synchronized (reclaimableDisplayTable) {
+				reclaimableDisplayTable.remove(imp);
+			}
+		}
 	}
 
 	/**
@@ -467,6 +925,36 @@ public class LegacyImageMap extends AbstractContextual {
 		}
 	}
 
+	/**
+	 * Gets the bare {@link Dataset} linked to the given {@link ImagePlus} by
+	 * {@link #registerLegacyDataset(ImagePlus)}, or null if there is none.
+	 */
+	private static Dataset linkedDataset(final ImagePlus imp) {
+		final Object dataset = imp.getProperty(DATASET_KEY);
+		if (!(dataset instanceof Dataset)) return null;
+		// NB: Copies of the ImagePlus may have inherited its properties.
+		final Object ref = ((Dataset) dataset).getProperties().get(DATASET_KEY);
+		return ref instanceof WeakReference && ((WeakReference<?>) ref)
+			.get() == imp ? (Dataset) dataset : null;
+	}
+
+	/**
+	 * Removes the link between the given {@link ImagePlus} and its bare
+	 * {@link Dataset} - if any.
+	 *
+	 * @return the formerly linked {@link Dataset}, or null
+	 */
+	private static Dataset unlinkDataset(final ImagePlus imp) {
+		synchronized (imp) {
+			final Dataset dataset = linkedDataset(imp);
+			if (dataset != null) dataset.getProperties().remove(DATASET_KEY);
+			if (imp.getProperty(DATASET_KEY) != null) {
+				imp.setProperty(DATASET_KEY, null);
+			}
+			return dataset;
+		}
+	}
+
 	/**
 	 * Removes the mappings created by {@link #addMapping(ImageDisplay, ImagePlus)}.
 	 */
@@ -479,10 +967,16 @@ public class LegacyImageMap extends AbstractContextual {
 		if (display != null) {
 			imagePlusTable.remove(display);
 			legacyImagePlusTable.remove(display);
+			removeReclaimable(display);
+			forgetRecent(display);
 		}
 		if (imp != null) {
 			displayTable.remove(imp);
 			legacyDisplayTable.remove(imp);
+			synchronized (reclaimableDisplayTable) {
+				reclaimableDisplayTable.remove(imp);
+			}
+			unlinkDataset(imp);
 			imagePluses.remove(imp);
 			if (deleteImp) LegacyUtils.deleteImagePlus(imp);
 			else {
@@ -668,6 +1162,23 @@ public class LegacyImageMap extends AbstractContextual {
 		}
 	}
 
+	/**
+	 * Catches up with the visual state of an activated {@link ImageDisplay}
+	 * whose harmonization was limited to data in the batch profile.
+	 */
+	@EventHandler
+	private void onEvent(final DisplayActivatedEvent event) {
+		final Display<?> display = event.getDisplay();
+		if (!(display instanceof ImageDisplay)) return;
+		synchronized (staleDisplays) {
+			if (!staleDisplays.remove(display)) return;
+		}
+		final ImagePlus imp = peekImagePlus((ImageDisplay) display);
+		if (imp == null) return;
+		new Harmonizer(legacyService.getContext(), imageTranslator)
+			.updateDisplayState((ImageDisplay) display, imp);
+	}
+
 	/**
 	 * Check if updated display is an {@link ImageDisplay} with a mapped
 	 * {@link ImagePlus}. If so, call {@link ImagePlus#updateAndDraw()}.
@@ -676,8 +1187,11 @@ public class LegacyImageMap extends AbstractContextual {
 	private void onEvent(final DisplayUpdatedEvent event) {
 		final Display<?> display = event.getDisplay();
 		if (display instanceof ImageDisplay) {
-			final ImagePlus mappedImagePlus = lookupImagePlus((ImageDisplay) event.getDisplay());
+			// NB: Do not recreate reclaimed ImagePluses just to update them.
+			final ImagePlus mappedImagePlus = peekImagePlus((ImageDisplay) display);
 			if (mappedImagePlus != null) {
+				synchronizeAttachmentsToImagePlus(mappedImagePlus,
+					(ImageDisplay) display);
 				final Harmonizer harmonizer =
 						new Harmonizer(legacyService.getContext(), imageTranslator);
 				harmonizer.updateLegacyImage((ImageDisplay) display, mappedImagePlus);
@@ -29,16 +29,22 @@
 
 package net.imagej.legacy;
 
+import java.awt.EventQueue;
 import java.awt.GraphicsEnvironment;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
@@ -81,6 +87,8 @@ import org.scijava.module.ModuleService;
 import org.scijava.module.event.ModuleCanceledEvent;
 import org.scijava.module.event.ModuleFinishedEvent;
 import org.scijava.module.event.ModuleStartedEvent;
+import org.scijava.module.event.ModulesAddedEvent;
+import org.scijava.module.event.ModulesRemovedEvent;
 import org.scijava.options.OptionsService;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
@@ -89,6 +97,7 @@ import org.scijava.script.ScriptInfo;
 import org.scijava.script.ScriptService;
 import org.scijava.service.AbstractService;
 import org.scijava.service.Service;
+import org.scijava.thread.ThreadService;
 import org.scijava.ui.ApplicationFrame;
 import org.scijava.ui.UIService;
 import org.scijava.ui.UserInterface;
@@ -126,6 +135,37 @@ public final class LegacyService extends AbstractService implements
 	private static final String ENABLE_MODERN_ONLY_COMMANDS_PROPERTY =
 		"imagej.legacy.modernOnlyCommands";
 
+	/**
+	 * System property naming a file to which the {@link StartupTimeline} is
+	 * written as JSON once initialization completes.
+	 */
+	private static final String STARTUP_TIMELINE_PROPERTY =
+		"imagej.legacy.startupTimeline";
+
+	/**
+	 * System property which, when set to true, runs all phases of initialization
+	 * sequentially on the calling thread.
+	 */
+	private static final String SERIAL_INIT_PROPERTY =
+		"imagej.legacy.serialInit";
+
+	/**
+	 * System property which, when set to true, defers the initialization of the
+	 * legacy commands, scripts and menus until they are first needed.
+	 *
+	 * @see #ensureCommandsInitialized()
+	 */
+	private static final String LAZY_INIT_PROPERTY = "imagej.legacy.lazyInit";
+
+	/**
+	 * System property which, when set to true, records the latency of the
+	 * legacy hooks from the start, and logs it when the service is disposed.
+	 *
+	 * @see #getHookMetrics()
+	 */
+	private static final String HOOK_METRICS_PROPERTY =
+		"imagej.legacy.hookMetrics";
+
 	/**
 	 * Static reference to the one and only active {@link LegacyService}. The JVM
 	 * can only have one instance of ImageJ 1.x, and hence one LegacyService,
@@ -166,6 +206,9 @@ public final class LegacyService extends AbstractService implements
 	@Parameter(required = false)
 	private AppService appService;
 
+	@Parameter(required = false)
+	private ThreadService threadService;
+
 	// FIXME: Why isn't this service declared as an optional parameter?
 	private UIService uiService;
 
@@ -202,6 +245,23 @@ public final class LegacyService extends AbstractService implements
 	 */
 	private IJ1Helper ij1Helper;
 
+	/** The legacy hooks installed into ImageJ 1.x. */
+	private DefaultLegacyHooks hooks;
+
+	/** Timing of the phases of {@link #initialize()}. */
+	private StartupTimeline startupTimeline;
+
+	/** Whether initialization of the legacy commands is still pending. */
+	private volatile boolean lazyCommands;
+
+	/** The thread running the deferred initialization of legacy commands. */
+	private Thread initializingThread;
+
+	private final Object lazyCommandsLock = new Object();
+
+	/** Latency of the legacy hooks' interception points. */
+	private final HookMetrics hookMetrics = new HookMetrics();
+
 	private final ThreadLocal<Boolean> isProcessingEvents = new ThreadLocal<>();
 
 	/**
@@ -210,7 +270,8 @@ public final class LegacyService extends AbstractService implements
 	 * {@code "no-legacy"} key in its {@link Parameter#attrs()} list. The map is
 	 * keyed on identifier; see the {@link Identifiable} interface.
 	 */
-	private final Map<String, ModuleInfo> legacyCompatible = new HashMap<>();
+	private final Map<String, ModuleInfo> legacyCompatible =
+		new ConcurrentHashMap<>();
 
 	// -- LegacyService methods --
 
@@ -261,6 +322,88 @@ public final class LegacyService extends AbstractService implements
 		return imageMap;
 	}
 
+	/**
+	 * Gets the timing of the phases of this service's initialization, for
+	 * diagnosing slow startup.
+	 */
+	public synchronized StartupTimeline getStartupTimeline() {
+		if (startupTimeline == null) startupTimeline = new StartupTimeline(log);
+		return startupTimeline;
+	}
+
+	/**
+	 * Gets the call counts and latencies of the legacy hooks' interception
+	 * points, for telling how much time is spent in the legacy bridge as opposed
+	 * to ImageJ 1.x. Recording must be enabled first, either via
+	 * {@link HookMetrics#setEnabled(boolean)} or the
+	 * {@code imagej.legacy.hookMetrics} system property.
+	 */
+	public HookMetrics getHookMetrics() {
+		return hookMetrics;
+	}
+
+	/** Logs a table of the legacy hooks' call counts and latencies. */
+	public void dumpHookMetrics() {
+		log.info("Legacy hook metrics:\n" + hookMetrics.report());
+	}
+
+	/**
+	 * Ensures that the legacy commands, scripts and menus are initialized.
+	 * <p>
+	 * When the {@code imagej.legacy.lazyInit} system property is set, this work
+	 * is skipped during {@link #initialize()}, so that contexts which only need
+	 * to convert between {@link ij.ImagePlus} and {@link net.imagej.Dataset}
+	 * start quickly. It is then done upon the first real use of the legacy
+	 * layer: running a legacy command, plugin or macro (including via
+	 * {@code IJ.run} and the macro interpreter), or showing the user interface.
+	 * Otherwise, this method does nothing.
+	 * </p>
+	 * <p>
+	 * Callers on other threads wait until the initialization has finished,
+	 * except for the event dispatch thread, which the initialization itself
+	 * may be waiting for.
+	 * </p>
+	 */
+	public void ensureCommandsInitialized() {
+		if (!lazyCommands) return;
+		synchronized (lazyCommandsLock) {
+			while (true) {
+				if (!lazyCommands) return;
+				// NB: Initialization may itself run legacy commands; do not recurse.
+				if (initializingThread == Thread.currentThread()) return;
+				if (initializingThread == null) break;
+				if (EventQueue.isDispatchThread()) return;
+				try {
+					lazyCommandsLock.wait();
+				}
+				catch (final InterruptedException exc) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			initializingThread = Thread.currentThread();
+		}
+		// NB: Do not hold the lock while publishing module events and
+		// populating the menus, which may involve other threads.
+		boolean initialized = false;
+		try {
+			final StartupTimeline timeline = getStartupTimeline();
+			final StartupTimeline.Phase phase = //
+				timeline.begin("lazyInitialization");
+			initializeCommands(timeline, false);
+			phase.end();
+			initialized = true;
+			writeStartupTimeline(timeline);
+		}
+		finally {
+			synchronized (lazyCommandsLock) {
+				if (initialized) lazyCommands = false;
+				initializingThread = null;
+				lazyCommandsLock.notifyAll();
+			}
+		}
+	}
+
 	/**
 	 * Runs a legacy command programmatically.
 	 *
@@ -272,6 +415,7 @@ public final class LegacyService extends AbstractService implements
 		final String argument)
 	{
 		checkActive();
+		ensureCommandsInitialized();
 		final String arg = argument == null ? "" : argument;
 		final Map<String, Object> inputMap = new HashMap<>();
 		inputMap.put("className", ij1ClassName);
@@ -291,6 +435,7 @@ public final class LegacyService extends AbstractService implements
 	 */
 	public Object runLegacyCompatibleCommand(final String key) {
 		checkActive();
+		ensureCommandsInitialized();
 		final ModuleInfo info = legacyCompatible.get(key);
 		if (info == null) return null;
 		if (info instanceof ScriptInfo) {
@@ -299,6 +444,8 @@ public final class LegacyService extends AbstractService implements
 				return openScriptInTextEditor((ScriptInfo) info);
 			}
 		}
+		final LegacyEvents.Event event =
+			LegacyEvents.begin(LegacyEvents.Type.COMPATIBLE_COMMAND);
 		try {
 			final Future<?> future = moduleService.run(info, true);
 			return future == null ? null : future.get();
@@ -307,6 +454,21 @@ public final class LegacyService extends AbstractService implements
 			if (e instanceof RuntimeException) throw (RuntimeException) e;
 			throw new RuntimeException(e);
 		}
+		finally {
+			LegacyEvents.commit(event, key);
+		}
+	}
+
+	/**
+	 * Opens several paths as one batch via the legacy openers, which may
+	 * read their data concurrently.
+	 *
+	 * @return The results, in the order of the given paths; {@code null} for
+	 *         each path which none of the openers handled.
+	 */
+	List<Object> openAll(final List<String> paths) {
+		checkActive();
+		return hooks.openAll(paths, true);
 	}
 
 	/**
@@ -367,6 +529,7 @@ public final class LegacyService extends AbstractService implements
 		final boolean initializing)
 	{
 		checkActive();
+		ensureCommandsInitialized();
 
 		// TODO: hide/show Brightness/Contrast, Color Picker, Command Launcher, etc
 
@@ -448,22 +611,29 @@ public final class LegacyService extends AbstractService implements
 			// part of another simultaneously existing application context.
 			return;
 		}
+		if (Boolean.getBoolean(HOOK_METRICS_PROPERTY)) hookMetrics.setEnabled(true);
+		final StartupTimeline timeline = getStartupTimeline();
+		final StartupTimeline.Phase total = timeline.begin("total");
 		synchronized (LegacyService.class) {
 			if (instance != null) return; // double-checked locking
 			try {
 				// Install the default legacy hooks before ImageJ 1.x initializes.
 				// Otherwise, the legacy hooks that fire during IJ1 initialization
 				// won't include DefaultLegacyHooks overrides of EssentialLegacyHooks.
+				final StartupTimeline.Phase hooksPhase = timeline.begin("installHooks");
 				final ClassLoader loader = Context.getClassLoader();
 				ij1Helper = new IJ1Helper(this);
-				LegacyInjector.installHooks(loader, //
-					new DefaultLegacyHooks(this));
+				hooks = new DefaultLegacyHooks(this);
+				LegacyInjector.installHooks(loader, hooks);
 				instance = this;
+				hooksPhase.end();
 
 				// Initialize ImageJ 1.x, if needed.
+				final StartupTimeline.Phase ij1Phase = timeline.begin("newImageJ1");
 				final boolean ij1Initialized = //
 					LegacyEnvironment.isImageJ1Initialized(loader);
 				if (!ij1Initialized) getLegacyEnvironment(loader).newImageJ1(true);
+				ij1Phase.end();
 			}
 			catch (final Throwable t) {
 				log.error("Failed to instantiate IJ1.", t);
@@ -471,43 +641,19 @@ public final class LegacyService extends AbstractService implements
 			}
 		}
 
-		ij1Helper.initialize();
-		ij1Helper.addAliases(scriptService);
-
-		// NB: We cannot call appService.getApp().getBaseDirectory(), because
-		// that prevents the net.imagej.app.ToplevelImageJApp from getting its
-		// LegacyService parameter injected properly.
-		// So we get the app directory in a much more unsafe way...
-		final File topLevel = //
-			AppUtils.getBaseDirectory("imagej.dir", getClass(), null);
-
-		final File plugins = new File(topLevel, "plugins");
-		if (plugins.exists()) {
-			final File scripts = new File(plugins, "Scripts");
-			if (scripts.exists()) scriptService.addScriptDirectory(scripts);
-			scriptService.addScriptDirectory(plugins, new MenuPath("Plugins"));
+		if (Boolean.getBoolean(LAZY_INIT_PROPERTY)) {
+			// NB: Set up only the bare ImageJ 1.x environment for now. The legacy
+			// commands, scripts and menus are initialized upon first legacy use.
+			final StartupTimeline.Phase helperPhase = //
+				timeline.begin("IJ1Helper.initialize");
+			ij1Helper.initialize();
+			helperPhase.end();
+			lazyCommands = true;
 		}
+		else initializeCommands(timeline, true);
 
-		// remove modules blocklisted from the legacy UI
-		if (Boolean.getBoolean(ENABLE_MODERN_ONLY_COMMANDS_PROPERTY)) {
-			log.info("Skipping blocklist of no-legacy commands");
-		}
-		else {
-			final List<ModuleInfo> noLegacyModules = //
-				moduleService.getModules().stream() //
-					.filter(info -> info.is("no-legacy")) //
-					.collect(Collectors.toList());
-			moduleService.removeModules(noLegacyModules);
-		}
-
-		// wrap ImageJ 1.x commands as SciJava modules
-		final List<CommandInfo> ij1Commands = //
-			new LegacyCommandFinder(this).findCommands();
-
-		ij1Helper.addMenuItems();
-
-		// register ImageJ 1.x modules with the module service.
-		moduleService.addModules(ij1Commands);
+		total.end();
+		writeStartupTimeline(timeline);
 	}
 
 	// -- Disposable methods --
@@ -516,6 +662,8 @@ public final class LegacyService extends AbstractService implements
 	public void dispose() {
 		if (!isActive()) return;
 
+		if (Boolean.getBoolean(HOOK_METRICS_PROPERTY)) dumpHookMetrics();
+
 		ij1Helper.dispose();
 
 		synchronized (LegacyService.class) {
@@ -605,6 +753,39 @@ public final class LegacyService extends AbstractService implements
 		Macros.setActiveModule(null);
 	}
 
+	/**
+	 * Adds newly registered legacy-compatible modules (e.g., a script dropped
+	 * into the plugins folder) to the ImageJ 1.x menus, one by one, rather than
+	 * rebuilding the menus from scratch.
+	 */
+	@EventHandler
+	private void onEvent(final ModulesAddedEvent evt) {
+		if (!isActive() || ij1Helper == null || !ij1Helper.isMenuInitialized()) {
+			return;
+		}
+		for (final ModuleInfo info : evt.getItems()) {
+			// NB: Wrapped ImageJ 1.x commands are already in the ImageJ 1.x menus.
+			if (info instanceof LegacyCommandInfo) continue;
+			if (!isLegacyCompatible(info)) continue;
+			final String key = info.getIdentifier();
+			legacyCompatible.put(key, info);
+			ij1Helper.addMenuItem(key, info);
+		}
+	}
+
+	/** Removes unregistered modules from the ImageJ 1.x menus. */
+	@EventHandler
+	private void onEvent(final ModulesRemovedEvent evt) {
+		if (!isActive() || ij1Helper == null || !ij1Helper.isMenuInitialized()) {
+			return;
+		}
+		for (final ModuleInfo info : evt.getItems()) {
+			final String key = info.getIdentifier();
+			if (legacyCompatible.remove(key) == null) continue;
+			ij1Helper.removeMenuItem(key, info);
+		}
+	}
+
 	// -- Internal methods --
 
 	/**
@@ -663,22 +844,17 @@ public final class LegacyService extends AbstractService implements
 		for (final CommandInfo info : commandService.getCommandsOfType(
 			Command.class))
 		{
-			if (!UIDetails.APPLICATION_MENU_ROOT.equals(info.getMenuRoot()) || //
-				info.getMenuPath().size() == 0 || info.is("no-legacy") || //
-				!info.getAnnotation().visible())
-			{
-				continue;
-			}
+			// NB: When the menus are re-added after ImageJ 1.x refreshed them, the
+			// wrapped ImageJ 1.x commands are registered, too; they must not
+			// override the very ImageJ 1.x commands they wrap.
+			if (info instanceof LegacyCommandInfo) continue;
+			if (!isLegacyCompatible(info)) continue;
 			final String key = info.getIdentifier();
 			legacyCompatible.put(key, info);
 			modules.put(key, info);
 		}
 		for (final ScriptInfo info : scriptService.getScripts()) {
-			if (info.getMenuPath().size() == 0) {
-				continue;
-			}
-			final String path = info.getPath();
-			if (!new File(path).getName().contains("_")) continue;
+			if (!isLegacyCompatible(info)) continue;
 			final String key = info.getIdentifier();
 			legacyCompatible.put(key, info);
 			modules.put(key, info);
@@ -703,6 +879,27 @@ public final class LegacyService extends AbstractService implements
 
 	// -- Helper methods --
 
+	/**
+	 * Checks whether the given module belongs in the ImageJ 1.x menus: visible
+	 * commands in the application menu which are not tagged {@code no-legacy},
+	 * and scripts whose file name contains an underscore.
+	 */
+	private boolean isLegacyCompatible(final ModuleInfo info) {
+		if (info.getMenuPath().size() == 0) return false;
+		if (info instanceof CommandInfo) {
+			final CommandInfo command = (CommandInfo) info;
+			final Plugin annotation = command.getAnnotation();
+			return UIDetails.APPLICATION_MENU_ROOT.equals(command.getMenuRoot()) &&
+				!command.is("no-legacy") && (annotation == null || annotation
+					.visible());
+		}
+		if (info instanceof ScriptInfo) {
+			final String path = ((ScriptInfo) info).getPath();
+			return path != null && new File(path).getName().contains("_");
+		}
+		return false;
+	}
+
 	/**
 	 * @throws UnsupportedOperationException if this {@code LegacyService} is not
 	 *           the active one.
@@ -769,6 +966,104 @@ public final class LegacyService extends AbstractService implements
 		return new File(scriptDir.getPath() + File.separator + script.getPath());
 	}
 
+	/**
+	 * Registers the legacy-compatible scripts and commands, wraps the ImageJ 1.x
+	 * commands as SciJava modules, and populates the ImageJ 1.x menus.
+	 *
+	 * @param timeline The timeline on which to record each phase.
+	 * @param initializeHelper Whether to initialize the {@link IJ1Helper}, once
+	 *          the scripts are registered.
+	 */
+	private void initializeCommands(final StartupTimeline timeline,
+		final boolean initializeHelper)
+	{
+		// NB: Script registration and module filtering run on the thread service,
+		// but the script and module services are not thread-safe: they are joined
+		// before anything else touches these services.
+		final InitScheduler scheduler = new InitScheduler(//
+			Boolean.getBoolean(SERIAL_INIT_PROPERTY) ? null : threadService,
+			timeline);
+
+		final Future<?> scripts = scheduler.submit("addScriptDirectories", () -> {
+			ij1Helper.addAliases(scriptService);
+
+			// NB: We cannot call appService.getApp().getBaseDirectory(), because
+			// that prevents the net.imagej.app.ToplevelImageJApp from getting its
+			// LegacyService parameter injected properly.
+			// So we get the app directory in a much more unsafe way...
+			final File topLevel = //
+				AppUtils.getBaseDirectory("imagej.dir", getClass(), null);
+
+			final File plugins = new File(topLevel, "plugins");
+			if (plugins.exists()) {
+				final File scriptsDir = new File(plugins, "Scripts");
+				if (scriptsDir.exists()) scriptService.addScriptDirectory(scriptsDir);
+				scriptService.addScriptDirectory(plugins, new MenuPath("Plugins"));
+			}
+			return null;
+		});
+
+		// find modules blocklisted from the legacy UI
+		final boolean modernOnly = //
+			Boolean.getBoolean(ENABLE_MODERN_ONLY_COMMANDS_PROPERTY);
+		final Future<List<ModuleInfo>> noLegacyModules = modernOnly ? null : //
+			scheduler.submit("findNoLegacyModules", () -> moduleService.getModules()
+				.stream() //
+				.filter(info -> info.is("no-legacy")) //
+				.collect(Collectors.toList()), "addScriptDirectories");
+
+		scheduler.get(scripts);
+		final List<ModuleInfo> blocklisted = //
+			modernOnly ? null : scheduler.get(noLegacyModules);
+
+		if (initializeHelper) {
+			final StartupTimeline.Phase helperPhase = //
+				timeline.begin("IJ1Helper.initialize");
+			ij1Helper.initialize();
+			helperPhase.end();
+		}
+
+		// remove modules blocklisted from the legacy UI
+		// NB: Module events are published on the calling thread, as before.
+		if (modernOnly) log.info("Skipping blocklist of no-legacy commands");
+		else moduleService.removeModules(blocklisted);
+
+		// wrap ImageJ 1.x commands as SciJava modules
+		// NB: This parses the ImageJ 1.x menus, so it must neither overlap with
+		// the menu updates caused by removing modules, nor run off the calling
+		// thread. And the commands must be discovered before the menus are
+		// extended, since addMenuItems adds entries to the same command table.
+		final StartupTimeline.Phase findPhase = timeline.begin("findCommands");
+		final List<CommandInfo> commands =
+			new LegacyCommandFinder(this).findCommands();
+		findPhase.end();
+
+		final StartupTimeline.Phase menuPhase = timeline.begin("addMenuItems");
+		ij1Helper.addMenuItems();
+		menuPhase.end();
+
+		// register ImageJ 1.x modules with the module service.
+		final StartupTimeline.Phase modulesPhase = timeline.begin("addModules");
+		moduleService.addModules(commands);
+		modulesPhase.end();
+	}
+
+	/**
+	 * Writes the startup timeline as JSON to the file given by the
+	 * {@code imagej.legacy.startupTimeline} system property, if set.
+	 */
+	private void writeStartupTimeline(final StartupTimeline timeline) {
+		final String path = System.getProperty(STARTUP_TIMELINE_PROPERTY);
+		if (path == null || path.isEmpty()) return;
+		try {
+			Files.write(Paths.get(path), //
+				timeline.toJSON().getBytes(StandardCharsets.UTF_8));
+		}
+		catch (final IOException | InvalidPathException exc) {
+			log.warn("Cannot write startup timeline to " + path, exc);
+		}
+	}
+
 	private static LegacyEnvironment getLegacyEnvironment(
 		final ClassLoader loader) throws ClassNotFoundException
 	{
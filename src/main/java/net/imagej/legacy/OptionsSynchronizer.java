@@ -48,6 +48,13 @@ import ij.process.ImageConverter;
 import java.awt.Color;
 import java.awt.Font;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import net.imagej.options.OptionsAppearance;
 import net.imagej.options.OptionsArrowTool;
@@ -67,7 +74,15 @@ import net.imagej.options.OptionsProxy;
 import net.imagej.options.OptionsRoundedRectangleTool;
 import net.imagej.options.OptionsWandTool;
 
+import org.scijava.Context;
+import org.scijava.event.EventHandler;
+import org.scijava.event.EventService;
+import org.scijava.event.EventSubscriber;
+import org.scijava.options.OptionsPlugin;
 import org.scijava.options.OptionsService;
+import org.scijava.options.event.OptionsEvent;
+import org.scijava.plugin.Parameter;
+import org.scijava.thread.ThreadService;
 import org.scijava.ui.awt.AWTColors;
 import org.scijava.util.ClassUtils;
 import org.scijava.util.ColorRGB;
@@ -76,50 +91,167 @@ import org.scijava.util.Types;
 /**
  * The options synchronizer bidirectionally synchronizes modern ImageJ options
  * with legacy ImageJ settings and preferences.
+ * <p>
+ * Synchronization is incremental: only the option groups whose
+ * {@link OptionsPlugin} changed, as announced by {@link OptionsEvent}s or
+ * {@link #markChanged(Class)}, are propagated to legacy ImageJ; options changed
+ * only through their setters must be marked as changed explicitly. Only the
+ * groups whose legacy settings differ from a snapshot taken at the previous
+ * synchronization are propagated back, and saved if that changed their
+ * options. The resulting preference writes are debounced on the
+ * {@link ThreadService}, so that a burst of synchronizations saves each group
+ * once; {@link #dispose()} saves whatever is still pending.
+ * </p>
  * 
  * @author Barry DeZonia
  */
 public class OptionsSynchronizer {
 
+	/** How long to wait for further changes before saving the preferences. */
+	private static final long SAVE_DELAY_MILLIS = 1000;
+
 	private final OptionsService optionsService;
 
+	private final List<Group> groups = new ArrayList<>();
+
+	/** The options changed since the last sync to legacy ImageJ. */
+	private final Set<Class<?>> changed = ConcurrentHashMap.newKeySet();
+
+	/** Whether all groups still need to be synchronized to legacy ImageJ. */
+	private volatile boolean allChanged = true;
+
+	/** The options whose preferences need to be saved. */
+	private final Set<OptionsPlugin> pendingSaves = new LinkedHashSet<>();
+
+	/** When the last preference write was requested. */
+	private long lastSaveRequest;
+
+	/** Whether a background save is waiting for the changes to settle. */
+	private boolean saveQueued;
+
+	private boolean disposed;
+
+	private final EventService eventService;
+	private final ThreadService threadService;
+	private List<EventSubscriber<?>> subscribers;
+
 	public OptionsSynchronizer(final OptionsService optionsService)
 	{
 		this.optionsService = optionsService;
+
+		group(OptionsAppearance.class, this::appearanceOptions,
+			this::appearanceStatics, this::appearanceFromStatics);
+		group(OptionsArrowTool.class, this::arrowOptions, this::arrowStatics,
+			this::arrowFromStatics);
+		group(OptionsChannels.class, this::colorOptions, null, null);
+		group(OptionsCompiler.class, this::compilerOptions, this::compilerStatics,
+			this::compilerFromStatics);
+		group(OptionsConversions.class, this::conversionsOptions,
+			this::conversionsStatics, this::conversionsFromStatics);
+		group(OptionsDicom.class, this::dicomOptions, this::dicomStatics,
+			this::dicomFromStatics);
+		group(OptionsFont.class, this::fontOptions, this::fontStatics,
+			this::fontFromStatics);
+		group(OptionsInputOutput.class, this::ioOptions, this::ioStatics,
+			this::ioFromStatics);
+		group(OptionsLineWidth.class, this::lineWidthOptions,
+			this::lineWidthStatics, this::lineWidthFromStatics);
+		group(OptionsMemoryAndThreads.class, this::memoryAndThreadsOptions,
+			this::memoryAndThreadsStatics, this::memoryAndThreadsFromStatics);
+		group(OptionsMisc.class, this::miscOptions, this::miscStatics,
+			this::miscFromStatics);
+		group(OptionsOverlay.class, this::overlayOptions, this::overlayStatics,
+			this::overlayFromStatics);
+		group(OptionsPointTool.class, this::pointOptions, this::pointStatics,
+			this::pointFromStatics);
+		group(OptionsProfilePlot.class, this::profilePlotOptions,
+			this::profilePlotStatics, this::profilePlotFromStatics);
+		group(OptionsProxy.class, this::proxyOptions, this::proxyStatics,
+			this::proxyFromStatics);
+		group(OptionsRoundedRectangleTool.class, this::roundRectOptions,
+			this::roundRectStatics, this::roundRectFromStatics);
+		group(OptionsWandTool.class, this::wandToolOptions, this::wandToolStatics,
+			this::wandToolFromStatics);
+
+		final Context context = optionsService.getContext();
+		eventService =
+			context == null ? null : context.getService(EventService.class);
+		threadService =
+			context == null ? null : context.getService(ThreadService.class);
+		if (eventService != null) subscribers = eventService.subscribe(this);
 	}
 
 	/**
 	 * Updates legacy ImageJ settings and preferences to reflect values set in
-	 * modern ImageJ dialogs.
+	 * modern ImageJ dialogs. Only the options which changed since the previous
+	 * call are propagated.
 	 */
 	public void updateLegacyImageJSettingsFromModernImageJ() {
-		appearanceOptions();
-		arrowOptions();
-		colorOptions();
-		compilerOptions();
-		conversionsOptions();
-		dicomOptions();
-		fontOptions();
-		ioOptions();
-		lineWidthOptions();
-		memoryAndThreadsOptions();
-		miscOptions();
-		overlayOptions();
-		pointOptions();
-		profilePlotOptions();
-		proxyOptions();
-		roundRectOptions();
-		wandToolOptions();
+		final boolean all = allChanged;
+		allChanged = false;
+		for (final Group group : groups) {
+			if (!changed.remove(group.optionsClass) && !all) continue;
+			group.toLegacy.run();
+			// NB: Remember the result, so it is not mistaken for a legacy change.
+			if (group.statics != null) group.snapshot = group.statics.get();
+		}
 	}
 
 	/**
 	 * Updates modern ImageJ options dialog settings to reflect values set by
-	 * legacy ImageJ plugins.
+	 * legacy ImageJ plugins. Only the settings which changed since the previous
+	 * synchronization are propagated.
 	 */
 	public void updateModernImageJSettingsFromLegacyImageJ() {
 		setOptionsFromStatics();
 	}
 
+	/**
+	 * Marks the given options as changed, so that they are propagated to legacy
+	 * ImageJ upon the next {@link #updateLegacyImageJSettingsFromModernImageJ()}.
+	 * This is needed for options changed via their setters, which publish no
+	 * {@link OptionsEvent}.
+	 */
+	public void markChanged(final Class<? extends OptionsPlugin> optionsClass) {
+		changed.add(optionsClass);
+	}
+
+	/**
+	 * Saves any pending preferences right away, and stops the background saving.
+	 * Preferences changed afterwards are saved immediately.
+	 */
+	public void dispose() {
+		if (subscribers != null) {
+			eventService.unsubscribe(subscribers);
+			subscribers = null;
+		}
+		synchronized (pendingSaves) {
+			disposed = true;
+			pendingSaves.notifyAll();
+		}
+		savePending();
+	}
+
+	/** Saves the preferences of all options which were changed, right away. */
+	public void savePending() {
+		final List<OptionsPlugin> toSave;
+		synchronized (pendingSaves) {
+			toSave = new ArrayList<>(pendingSaves);
+			pendingSaves.clear();
+		}
+		for (final OptionsPlugin options : toSave) {
+			options.save();
+		}
+	}
+
+	// -- Event handlers --
+
+	@EventHandler
+	protected void onEvent(final OptionsEvent event) {
+		final OptionsPlugin options = event.getOptions();
+		if (options != null) changed.add(options.getClass());
+	}
+
 	// -- helpers --
 
 	private void appearanceOptions() {
@@ -428,6 +560,21 @@ public class OptionsSynchronizer {
 	}
 
 	private void setOptionsFromStatics() {
+		for (final Group group : groups) {
+			if (group.statics == null) continue;
+			final List<Object> statics = group.statics.get();
+			if (statics.equals(group.snapshot)) continue;
+			group.snapshot = statics;
+			// NB: Some settings, e.g. those of a missing compiler, are not
+			// propagated at all; only save the options if they actually changed.
+			final List<Object> before = parameterValues(group.optionsClass);
+			group.fromLegacy.run();
+			if (before.equals(parameterValues(group.optionsClass))) continue;
+			scheduleSave(optionsService.getOptions(group.optionsClass));
+		}
+	}
+
+	private void appearanceFromStatics() {
 		final OptionsAppearance optionsAppearance =
 			optionsService.getOptions(OptionsAppearance.class);
 		optionsAppearance.setAntialiasedToolIcons(Prefs.antialiasedTools);
@@ -437,8 +584,15 @@ public class OptionsSynchronizer {
 		optionsAppearance.setNoImageBorder(Prefs.noBorder);
 		optionsAppearance.setUseInvertingLUT(Prefs.useInvertingLut);
 		optionsAppearance.setSelectionColor(AWTColors.getColorRGB(Roi.getColor()));
-		optionsAppearance.save();
+	}
+
+	private List<Object> appearanceStatics() {
+		return Arrays.<Object> asList(Prefs.antialiasedTools, Prefs.blackCanvas,
+			Prefs.open100Percent, Prefs.interpolateScaledImages, Prefs.noBorder,
+			Prefs.useInvertingLut, Roi.getColor());
+	}
 
+	private void arrowFromStatics() {
 		final OptionsArrowTool optionsArrowTool =
 			optionsService.getOptions(OptionsArrowTool.class);
 		final boolean arrowTwoHeads = Arrow.getDefaultDoubleHeaded();
@@ -456,7 +610,6 @@ public class OptionsSynchronizer {
 		optionsArrowTool.setArrowStyle(arrowStyleName);
 		final int arrowWidth = (int) Arrow.getDefaultWidth();
 		optionsArrowTool.setArrowWidth(arrowWidth);
-		optionsArrowTool.save();
 
 		/* retired
 		final OptionsChannels optionsColors =
@@ -467,7 +620,15 @@ public class OptionsSynchronizer {
 			AWTColors.getColorRGB(Toolbar.getBackgroundColor()));
 		optionsColors.save();
 		*/
-		
+	}
+
+	private List<Object> arrowStatics() {
+		return Arrays.<Object> asList(Arrow.getDefaultDoubleHeaded(), Arrow
+			.getDefaultOutline(), Arrow.getDefaultHeadSize(), Arrow
+				.getDefaultStyle(), Arrow.getDefaultWidth());
+	}
+
+	private void compilerFromStatics() {
 		final OptionsCompiler optionsCompiler =
 			optionsService.getOptions(OptionsCompiler.class);
 		final Field field = getCompilerField("target");
@@ -476,22 +637,40 @@ public class OptionsSynchronizer {
 		if (field != null) {
 			optionsCompiler.setTargetJavaVersion(target);
 			optionsCompiler.setGenerateDebugInfo(debug);
-			optionsCompiler.save();
 		}
+	}
 
+	private List<Object> compilerStatics() {
+		return Arrays.<Object> asList(getIJ1CompilerDebugFlag(),
+			getIJ1CompilerTarget());
+	}
+
+	private void conversionsFromStatics() {
 		final OptionsConversions optionsConversions =
 			optionsService.getOptions(OptionsConversions.class);
 		optionsConversions.setScaleWhenConverting(ImageConverter.getDoScaling());
 		optionsConversions.setWeightedRgbConversions(Prefs.weightedColor);
-		optionsConversions.save();
+	}
 
+	private List<Object> conversionsStatics() {
+		return Arrays.<Object> asList(ImageConverter.getDoScaling(),
+			Prefs.weightedColor);
+	}
+
+	private void dicomFromStatics() {
 		final OptionsDicom optionsDicom =
 			optionsService.getOptions(OptionsDicom.class);
 		optionsDicom.setOpenAs32bitFloat(Prefs.openDicomsAsFloat);
 		optionsDicom.setRotateXZ(Prefs.flipXZ);
 		optionsDicom.setRotateYZ(Prefs.rotateYZ);
-		optionsDicom.save();
+	}
+
+	private List<Object> dicomStatics() {
+		return Arrays.<Object> asList(Prefs.openDicomsAsFloat, Prefs.flipXZ,
+			Prefs.rotateYZ);
+	}
 
+	private void fontFromStatics() {
 		final OptionsFont optionsFont =
 			optionsService.getOptions(OptionsFont.class);
 		optionsFont.setFont(TextRoi.getFont());
@@ -503,8 +682,14 @@ public class OptionsSynchronizer {
 		else if (tmp == Font.ITALIC) fontStyleString = "Italic";
 		else fontStyleString = "";
 		optionsFont.setFontStyle(fontStyleString);
-		optionsFont.save();
+	}
+
+	private List<Object> fontStatics() {
+		return Arrays.<Object> asList(TextRoi.getFont(), TextRoi.getSize(),
+			TextRoi.getStyle());
+	}
 
+	private void ioFromStatics() {
 		final OptionsInputOutput optionsInputOutput =
 			optionsService.getOptions(OptionsInputOutput.class);
 		optionsInputOutput.setCopyColumnHeaders(Prefs.copyColumnHeaders);
@@ -515,20 +700,39 @@ public class OptionsSynchronizer {
 		optionsInputOutput.setSaveRowNumbers(!Prefs.dontSaveRowNumbers);
 		optionsInputOutput.setTransparentIndex(Prefs.getTransparentIndex());
 		optionsInputOutput.setUseJFileChooser(Prefs.useJFileChooser);
-		optionsInputOutput.save();
+	}
+
+	private List<Object> ioStatics() {
+		return Arrays.<Object> asList(Prefs.copyColumnHeaders, Prefs.noRowNumbers,
+			FileSaver.getJpegQuality(), Prefs.dontSaveHeaders, Prefs.intelByteOrder,
+			Prefs.dontSaveRowNumbers, Prefs.getTransparentIndex(),
+			Prefs.useJFileChooser);
+	}
 
+	private void lineWidthFromStatics() {
 		final OptionsLineWidth optionsLineWidth =
 			optionsService.getOptions(OptionsLineWidth.class);
 		optionsLineWidth.setLineWidth(Line.getWidth());
-		optionsLineWidth.save();
+	}
 
+	private List<Object> lineWidthStatics() {
+		return Arrays.<Object> asList(Line.getWidth());
+	}
+
+	private void memoryAndThreadsFromStatics() {
 		final OptionsMemoryAndThreads optionsMemoryAndThreads =
 			optionsService.getOptions(OptionsMemoryAndThreads.class);
 		optionsMemoryAndThreads.setMultipleBuffers(Prefs.keepUndoBuffers);
 		optionsMemoryAndThreads.setRunGcOnClick(!Prefs.noClickToGC);
 		optionsMemoryAndThreads.setStackThreads(Prefs.getThreads());
-		optionsMemoryAndThreads.save();
+	}
 
+	private List<Object> memoryAndThreadsStatics() {
+		return Arrays.<Object> asList(Prefs.keepUndoBuffers, Prefs.noClickToGC,
+			Prefs.getThreads());
+	}
+
+	private void miscFromStatics() {
 		final OptionsMisc optionsMisc =
 			optionsService.getOptions(OptionsMisc.class);
 		final String dbzString =
@@ -540,8 +744,15 @@ public class OptionsSynchronizer {
 		optionsMisc.setUsePtrCursor(Prefs.usePointerCursor);
 		optionsMisc.setRequireCommandKey(Prefs.requireControlKey);
 		optionsMisc.setRunSingleInstanceListener(Prefs.runSocketListener);
-		optionsMisc.save();
+	}
+
+	private List<Object> miscStatics() {
+		return Arrays.<Object> asList(FloatBlitter.divideByZeroValue, IJ.debugMode,
+			IJ.hideProcessStackDialog, Prefs.moveToMisc, Prefs.usePointerCursor,
+			Prefs.requireControlKey, Prefs.runSocketListener);
+	}
 
+	private void overlayFromStatics() {
 		final OptionsOverlay optionsOverlay =
 			optionsService.getOptions(OptionsOverlay.class);
 		final Roi defaultRoi = getIJ1DefaultRoi();
@@ -556,8 +767,15 @@ public class OptionsSynchronizer {
 		if (c == null) c = Roi.getColor();
 		if (c != null) optionsOverlay.setLineColor(AWTColors.getColorRGB(c));
 		optionsOverlay.setLineWidth(defaultRoi.getStrokeWidth());
-		optionsOverlay.save();
+	}
 
+	private List<Object> overlayStatics() {
+		final Roi defaultRoi = getIJ1DefaultRoi();
+		return Arrays.<Object> asList(defaultRoi.getFillColor(), defaultRoi
+			.getStrokeColor(), Roi.getColor(), defaultRoi.getStrokeWidth());
+	}
+
+	private void pointFromStatics() {
 		final OptionsPointTool optionsPointTool =
 			optionsService.getOptions(OptionsPointTool.class);
 		optionsPointTool.setAddToRoiMgr(Prefs.pointAddToManager);
@@ -565,8 +783,15 @@ public class OptionsSynchronizer {
 		optionsPointTool.setAutoNextSlice(Prefs.pointAutoNextSlice);
 		optionsPointTool.setLabelPoints(!Prefs.noPointLabels);
 		optionsPointTool.setMarkWidth(Analyzer.markWidth);
-		optionsPointTool.save();
+	}
+
+	private List<Object> pointStatics() {
+		return Arrays.<Object> asList(Prefs.pointAddToManager,
+			Prefs.pointAutoMeasure, Prefs.pointAutoNextSlice, Prefs.noPointLabels,
+			Analyzer.markWidth);
+	}
 
+	private void profilePlotFromStatics() {
 		final OptionsProfilePlot optionsProfilePlot =
 			optionsService.getOptions(OptionsProfilePlot.class);
 		optionsProfilePlot.setAutoClose(ij.gui.PlotWindow.autoClose);
@@ -581,28 +806,119 @@ public class OptionsSynchronizer {
 		optionsProfilePlot.setMinY(yMin);
 		optionsProfilePlot.setVertProfile(Prefs.verticalProfile);
 		optionsProfilePlot.setWidth(ij.gui.PlotWindow.plotWidth);
-		optionsProfilePlot.save();
+	}
+
+	private List<Object> profilePlotStatics() {
+		return Arrays.<Object> asList(ij.gui.PlotWindow.autoClose,
+			ij.gui.PlotWindow.saveXValues, ij.gui.PlotWindow.noGridLines,
+			ij.gui.PlotWindow.plotHeight, ij.gui.PlotWindow.interpolate,
+			ij.gui.PlotWindow.listValues, ProfilePlot.getFixedMin(), ProfilePlot
+				.getFixedMax(), Prefs.verticalProfile, ij.gui.PlotWindow.plotWidth);
+	}
 
+	private void proxyFromStatics() {
 		final OptionsProxy optionsProxy =
 			optionsService.getOptions(OptionsProxy.class);
 		optionsProxy.setUseSystemProxy(ij.Prefs.useSystemProxies);
-		optionsProxy.save();
+	}
+
+	private List<Object> proxyStatics() {
+		return Arrays.<Object> asList(ij.Prefs.useSystemProxies);
+	}
 
+	private void roundRectFromStatics() {
 		final OptionsRoundedRectangleTool optionsRoundedRectangleTool =
 			optionsService.getOptions(OptionsRoundedRectangleTool.class);
 		final int crnDiam = Toolbar.getRoundRectArcSize();
 		final double width = getIJ1DefaultStrokeWidth();
 		optionsRoundedRectangleTool.setCornerDiameter(crnDiam);
 		optionsRoundedRectangleTool.setStrokeWidth((int) width);
-		optionsRoundedRectangleTool.save();
+	}
 
+	private List<Object> roundRectStatics() {
+		return Arrays.<Object> asList(Toolbar.getRoundRectArcSize(),
+			getIJ1DefaultStrokeWidth());
+	}
+
+	private void wandToolFromStatics() {
 		final OptionsWandTool optionsWandTool =
 			optionsService.getOptions(OptionsWandTool.class);
 		final String mode = getIJ1WandMode();
 		final double tol = getIJ1WandTolerance();
 		optionsWandTool.setMode(mode);
 		optionsWandTool.setTolerance(tol);
-		optionsWandTool.save();
+	}
+
+	private List<Object> wandToolStatics() {
+		return Arrays.<Object> asList(getIJ1WandMode(), getIJ1WandTolerance());
+	}
+
+	private void group(final Class<? extends OptionsPlugin> optionsClass,
+		final Runnable toLegacy, final Supplier<List<Object>> statics,
+		final Runnable fromLegacy)
+	{
+		groups.add(new Group(optionsClass, toLegacy, statics, fromLegacy));
+	}
+
+	/**
+	 * Saves the given options' preferences soon, once no further changes have
+	 * happened for a while.
+	 */
+	private void scheduleSave(final OptionsPlugin options) {
+		synchronized (pendingSaves) {
+			if (!disposed && threadService != null) {
+				pendingSaves.add(options);
+				lastSaveRequest = System.currentTimeMillis();
+				if (!saveQueued) {
+					saveQueued = true;
+					threadService.run(this::saveWhenSettled);
+				}
+				return;
+			}
+		}
+		options.save();
+	}
+
+	/**
+	 * Waits until no preference write was requested for
+	 * {@link #SAVE_DELAY_MILLIS}, or until disposal, then saves the pending
+	 * preferences.
+	 */
+	private void saveWhenSettled() {
+		try {
+			synchronized (pendingSaves) {
+				while (!disposed) {
+					final long wait = lastSaveRequest + SAVE_DELAY_MILLIS - //
+						System.currentTimeMillis();
+					if (wait <= 0) break;
+					pendingSaves.wait(wait);
+				}
+			}
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			synchronized (pendingSaves) {
+				saveQueued = false;
+			}
+			savePending();
+		}
+	}
+
+	/** Gets the current values of the given options' parameters. */
+	private List<Object> parameterValues(
+		final Class<? extends OptionsPlugin> optionsClass)
+	{
+		final OptionsPlugin options = optionsService.getOptions(optionsClass);
+		final List<Object> values = new ArrayList<>();
+		if (options == null) return values;
+		for (final Field field : ClassUtils.getAnnotatedFields(optionsClass,
+			Parameter.class))
+		{
+			values.add(ClassUtils.getValue(field, options));
+		}
+		return values;
 	}
 
 	private Roi getIJ1DefaultRoi() {
@@ -694,4 +1010,34 @@ public class OptionsSynchronizer {
 		}
 	}
 
+	/**
+	 * A group of legacy settings, corresponding to one {@link OptionsPlugin}.
+	 */
+	private static class Group {
+
+		private final Class<? extends OptionsPlugin> optionsClass;
+
+		/** Propagates the options to legacy ImageJ. */
+		private final Runnable toLegacy;
+
+		/** Gets the current legacy settings, or null if not propagated back. */
+		private final Supplier<List<Object>> statics;
+
+		/** Propagates the legacy settings to the options, without saving. */
+		private final Runnable fromLegacy;
+
+		/** The legacy settings as of the last synchronization. */
+		private List<Object> snapshot;
+
+		private Group(final Class<? extends OptionsPlugin> optionsClass,
+			final Runnable toLegacy, final Supplier<List<Object>> statics,
+			final Runnable fromLegacy)
+		{
+			this.optionsClass = optionsClass;
+			this.toLegacy = toLegacy;
+			this.statics = statics;
+			this.fromLegacy = fromLegacy;
+		}
+	}
+
 }
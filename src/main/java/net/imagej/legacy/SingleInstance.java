@@ -31,12 +31,26 @@ package net.imagej.legacy;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.rmi.NoSuchObjectException;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
 
 import org.scijava.log.LogService;
 
@@ -47,6 +61,11 @@ import org.scijava.log.LogService;
  * 
  * No need for extra security, as the stub (and its serialization) contain
  * a hard-to-guess hash code.
+ * <p>
+ * Arguments are preferably sent via a {@link SingleInstanceChannel}, whose
+ * port and secret token are published in a private file next to the stub;
+ * the RMI stub serves as fallback, e.g. for clients of older versions.
+ * </p>
  *
  *@author Johannes Schindelin
  *@author Mark Hiner
@@ -57,6 +76,7 @@ public class SingleInstance {
 	private final LogService log;
 	private final IJ1Helper helper;
 	private final boolean isWindows;
+	private boolean waitForCompletion;
 
 	public SingleInstance(final int port, final LogService log, final IJ1Helper helper) {
 		this.port = port;
@@ -66,14 +86,38 @@ public class SingleInstance {
 		isWindows = osName != null && osName.toLowerCase().indexOf("win") >= 0;
 	}
 
+	/**
+	 * Sets whether {@link #sendArguments(String[])} waits until the other
+	 * instance has executed the commands, rather than returning as soon as the
+	 * other instance has received them. Waiting requires the other instance to
+	 * support the {@link SingleInstanceChannel}.
+	 */
+	public void setWaitForCompletion(final boolean waitForCompletion) {
+		this.waitForCompletion = waitForCompletion;
+	}
+
 	private interface ImageJInstance extends Remote {
 		void sendArgument(String arg) throws RemoteException;
 	}
 
-	private class Implementation implements ImageJInstance {
+	private class Implementation implements ImageJInstance,
+		SingleInstanceQueue.Handler
+	{
 		@Override
 		public void sendArgument(String cmd) {
 			log.debug("SocketServer.sendArgument: \""+ cmd+"\"");
+			// NB: Return at once; the command is executed by the queue's worker.
+			queue.submit(Collections.singletonList(cmd));
+		}
+
+		@Override
+		public void openAll(List<String> paths) {
+			helper.openAllAndAddToRecent(paths);
+		}
+
+		@Override
+		public void execute(String cmd) {
+			log.debug("SocketServer.execute: \""+ cmd+"\"");
 			if (cmd.startsWith("open "))
 				IJ1Helper.openAndAddToRecent(new File(cmd.substring(5)));
 			else if (cmd.startsWith("macro ")) {
@@ -100,6 +144,18 @@ public class SingleInstance {
 	}
 
 	public String getStubPath() {
+		return getBasePath() + ".stub";
+	}
+
+	/**
+	 * Gets the path of the file holding the port and token of the
+	 * {@link SingleInstanceChannel}.
+	 */
+	public String getChannelPath() {
+		return getBasePath() + ".channel";
+	}
+
+	private String getBasePath() {
 		String display = System.getenv("DISPLAY");
 		if (display != null) {
 			// avoid problems with non-existing directories
@@ -116,7 +172,7 @@ public class SingleInstance {
 		return tmpDir + "ImageJ-"
 			+ System.getProperty("user.name") + "-"
 			+ (display == null ? "" : display + "-")
-			+ port + ".stub";
+			+ port;
 	}
 
 	public void makeFilePrivate(String path) {
@@ -148,6 +204,12 @@ public class SingleInstance {
 	 *         creates a new server instance.
 	 */
 	public boolean sendArguments(String[] args) {
+		final List<String> commands = toCommands(args);
+		if (sendViaChannel(commands)) {
+			log.debug("sendArguments: sent via channel");
+			return true;
+		}
+
 		boolean sent = false;
 		final File file = new File(getStubPath());
 
@@ -160,7 +222,7 @@ public class SingleInstance {
 				ImageJInstance instance = (ImageJInstance)objIn.readObject();
 
 				if (instance != null) {
-					sendArguments(args, instance);
+					sendArguments(commands, instance);
 
 					// Instance was non-null and arguments sent
 					sent = true;
@@ -191,11 +253,47 @@ public class SingleInstance {
 	}
 
 	/**
-	 * Sends arguments to specified ImageJ instance
+	 * Sends the commands to the instance whose port and token are published in
+	 * the channel file, if any.
+	 *
+	 * @return true iff the other instance acknowledged the commands.
+	 */
+	private boolean sendViaChannel(final List<String> commands) {
+		final File file = new File(getChannelPath());
+		if (!file.exists()) return false;
+		if (!isOwnedByCurrentUser(file)) {
+			log.warn("Ignoring channel file not owned by the current user: " + file);
+			return false;
+		}
+		try {
+			final String[] portAndToken = new String(Files.readAllBytes(file
+				.toPath()), StandardCharsets.US_ASCII).trim().split("\\s+");
+			return SingleInstanceChannel.send(Integer.parseInt(portAndToken[0]),
+				portAndToken[1], commands, waitForCompletion
+					? SingleInstanceChannel.FLAG_WAIT : 0);
+		}
+		catch (final IOException | RuntimeException e) {
+			log.debug("Could not send arguments via channel; falling back to RMI", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Sends commands to specified ImageJ instance
 	 */
-	private void sendArguments(String[] args, ImageJInstance instance) throws RemoteException {
+	private void sendArguments(List<String> commands, ImageJInstance instance) throws RemoteException {
 		log.debug("sendArguments: " + instance);
-		instance.sendArgument("user.dir " + System.getProperty("user.dir"));
+		for (final String cmd : commands)
+			instance.sendArgument(cmd);
+	}
+
+	/**
+	 * Translates command line arguments into the commands understood by
+	 * {@link Implementation#sendArgument(String)}.
+	 */
+	private static List<String> toCommands(String[] args) {
+		final List<String> commands = new ArrayList<>();
+		commands.add("user.dir " + System.getProperty("user.dir"));
 		int macros = 0;
 		for (int i = 0; i < args.length; i++) {
 			String arg = args[i];
@@ -208,7 +306,7 @@ public class SingleInstance {
 			} else if (arg.startsWith("-macro") && i + 1 < args.length) {
 				String macroArg = i + 2 < args.length ? "(" + args[i + 2] + ")" : "";
 				cmd = "macro " + args[i + 1] + macroArg;
-				instance.sendArgument(cmd);
+				commands.add(cmd);
 				break;
 			} else if (arg.startsWith("-eval") && i + 1 < args.length) {
 				cmd = "eval " + args[i + 1];
@@ -219,12 +317,16 @@ public class SingleInstance {
 			} else if (arg.indexOf("ij.ImageJ") == -1 && !arg.startsWith("-"))
 				cmd = "open " + arg;
 			if (cmd != null)
-				instance.sendArgument(cmd);
+				commands.add(cmd);
 		}
+		return commands;
 	}
 
 	private static ImageJInstance stub;
 	private static Implementation implementation;
+	private static SingleInstanceQueue queue;
+	private static SingleInstanceChannel channel;
+	private static File channelFile;
 
 	private void startServer() {
 		// TODO: not thread safe
@@ -233,6 +335,8 @@ public class SingleInstance {
 		try (FileOutputStream out = new FileOutputStream(path);
 				ObjectOutputStream objOut = new ObjectOutputStream(out)) {
 			implementation = new Implementation();
+			if (queue != null) queue.close();
+			queue = new SingleInstanceQueue(implementation, log);
 			stub = (ImageJInstance)UnicastRemoteObject.exportObject(implementation, 0);
 
 			// Write serialized object
@@ -243,12 +347,91 @@ public class SingleInstance {
 		} catch (Exception e) {
 			log.error(e);
 		}
+		if (queue != null) startChannel();
+	}
+
+	private void startChannel() {
+		final File file = new File(getChannelPath());
+		try {
+			final SingleInstanceChannel c = new SingleInstanceChannel(queue, log);
+			try {
+				file.delete(); // NB: the file must be created afresh
+				writePrivateFile(file, (c.getPort() + " " + c.getToken() + "\n")
+					.getBytes(StandardCharsets.US_ASCII));
+			}
+			catch (final IOException e) {
+				c.close();
+				throw e;
+			}
+			if (!isPosix()) makeFilePrivate(file.getPath());
+			else file.deleteOnExit();
+			channel = c;
+			channelFile = file;
+			log.debug("SingleInstance: channel listening on port " + c.getPort());
+		} catch (IOException e) {
+			log.error(e);
+		}
+	}
+
+	/**
+	 * Creates the given file, which must not exist yet, and writes the given
+	 * content to it. Where supported, the file is created readable and writable
+	 * by the current user only, so that its content is never exposed to other
+	 * users, not even briefly.
+	 *
+	 * @throws IOException if the file already exists or cannot be written
+	 */
+	static void writePrivateFile(final File file, final byte[] content)
+		throws IOException
+	{
+		final FileAttribute<?>[] attributes = isPosix() ? //
+			new FileAttribute<?>[] { PosixFilePermissions.asFileAttribute(
+				PosixFilePermissions.fromString("rw-------")) } : //
+			new FileAttribute<?>[0];
+		try (final SeekableByteChannel out = Files.newByteChannel(file.toPath(),
+			EnumSet.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+			attributes))
+		{
+			final ByteBuffer buffer = ByteBuffer.wrap(content);
+			while (buffer.hasRemaining()) out.write(buffer);
+		}
+	}
+
+	/**
+	 * Checks whether the given file is owned by the current user, so that its
+	 * content can be trusted.
+	 */
+	static boolean isOwnedByCurrentUser(final File file) {
+		final String user = System.getProperty("user.name");
+		try {
+			final String owner = Files.getOwner(file.toPath(),
+				LinkOption.NOFOLLOW_LINKS).getName();
+			// NB: On Windows, the owner is qualified by the domain.
+			return owner.equals(user) || owner.endsWith("\\" + user);
+		}
+		catch (final IOException | UnsupportedOperationException e) {
+			return false;
+		}
+	}
+
+	private static boolean isPosix() {
+		return FileSystems.getDefault().supportedFileAttributeViews().contains(
+			"posix");
 	}
 
 	/**
 	 * Clean up remote objects
 	 */
 	public static void shutDown() {
+		if (SingleInstance.channel != null) {
+			SingleInstance.channel.close();
+			SingleInstance.channel = null;
+			SingleInstance.channelFile.delete();
+		}
+		if (SingleInstance.queue != null) {
+			SingleInstance.queue.close();
+			SingleInstance.queue = null;
+		}
 		try {
 			if (SingleInstance.implementation != null) {
 				UnicastRemoteObject.unexportObject(SingleInstance.implementation, true);
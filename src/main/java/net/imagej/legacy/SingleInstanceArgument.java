@@ -65,6 +65,11 @@ import org.scijava.ui.UIService;
  * do so.
  * </p>
  * <p>
+ * The {@code --wait-single-instance} flag makes ImageJ wait until the other
+ * instance has finished executing the forwarded arguments (e.g. opening all
+ * the images), rather than exiting as soon as it has received them.
+ * </p>
+ * <p>
  * The --portXXX argument sets the communication channel to use when
  * communicating with the other instance. The default is 7, but a different
  * value can be given to create multiple "single instances" of ImageJ on
@@ -117,6 +122,9 @@ public class SingleInstanceArgument extends AbstractConsoleArgument {
 	/** Whether the single instance logic should be invoked if at all possible. */
 	private boolean forceSingleInstance;
 
+	/** Whether to wait for the other instance to execute the arguments. */
+	private boolean waitSingleInstance;
+
 	/** The port/channel of the already-running instance to contact. */
 	private int port = 7;
 
@@ -205,6 +213,7 @@ public class SingleInstanceArgument extends AbstractConsoleArgument {
 		// Everything looks good so far; let's check for another instance.
 		log().debug("Invoking single instance logic.");
 		final SingleInstance instance = new SingleInstance(port, log(), ij1Helper);
+		instance.setWaitForCompletion(waitSingleInstance);
 		if (instance.sendArguments(listToArray(otherArgs))) {
 			log().info("Detected existing ImageJ; passing arguments along");
 
@@ -232,6 +241,11 @@ public class SingleInstanceArgument extends AbstractConsoleArgument {
 			log().debug("Single instance mode ENABLED");
 			return true;
 		}
+		if ("--wait-single-instance".equals(arg)) {
+			waitSingleInstance = true;
+			log().debug("Waiting for single instance to finish");
+			return true;
+		}
 		// --port
 		final Pattern p = Pattern.compile("--?port([0-9]+)");
 		final Matcher m = p.matcher(arg);
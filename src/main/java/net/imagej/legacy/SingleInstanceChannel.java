@@ -0,0 +1,308 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.scijava.log.LogService;
+
+/**
+ * A lightweight loopback protocol for handing command batches to a running
+ * instance of ImageJ, as a faster alternative to an RMI round trip per
+ * command.
+ * <p>
+ * The client connects to the server's loopback port and sends a single
+ * frame: a magic number, flags, the server's secret token and the commands,
+ * all length-prefixed. The server checks the token, hands the batch to a
+ * {@link SingleInstanceQueue} and acknowledges it with a single byte. If the
+ * client asked to {@link #FLAG_WAIT wait}, the server sends a second byte once
+ * the batch was executed. The port and token are published via a private
+ * file; see {@link SingleInstance}.
+ * </p>
+ */
+class SingleInstanceChannel implements Closeable {
+
+	/** "IJSI": marks a single instance frame. */
+	private static final int MAGIC = 0x494a5349;
+
+	/** Asks the server to report when the batch has been executed. */
+	static final int FLAG_WAIT = 1;
+
+	private static final byte ACK = 1;
+	private static final byte NACK = 0;
+	private static final byte DONE = 2;
+	private static final byte FAILED = 3;
+
+	private static final int MAX_TOKEN_LENGTH = 256;
+	private static final int MAX_FRAME_BYTES = 16 << 20;
+
+	/** How long to wait for the other side of the connection. */
+	private static final int TIMEOUT_MILLIS = 5000;
+
+	private final LogService log;
+	private final SingleInstanceQueue queue;
+	private final ServerSocketChannel server;
+	private final byte[] token;
+	private final Thread acceptor;
+
+	private volatile boolean closed;
+
+	/**
+	 * Starts listening on a random loopback port.
+	 *
+	 * @param queue Executes each batch of commands received.
+	 */
+	SingleInstanceChannel(final SingleInstanceQueue queue, final LogService log)
+		throws IOException
+	{
+		this.queue = queue;
+		this.log = log;
+		final byte[] random = new byte[16];
+		new SecureRandom().nextBytes(random);
+		token = hex(random).getBytes(StandardCharsets.US_ASCII);
+
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+		acceptor = new Thread(this::acceptLoop, "ImageJ-SingleInstance-Listener");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/** Gets the loopback port on which this channel listens. */
+	int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	/** Gets the secret which clients must send along with their commands. */
+	String getToken() {
+		return new String(token, StandardCharsets.US_ASCII);
+	}
+
+	/** Stops listening. */
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			server.close();
+		}
+		catch (final IOException exc) {
+			log.debug(exc);
+		}
+		acceptor.interrupt();
+	}
+
+	/**
+	 * Sends a batch of commands to the instance listening on the given port.
+	 *
+	 * @param flags {@link #FLAG_WAIT} to wait until the other instance has
+	 *          executed the batch, or 0.
+	 * @return true iff the other instance acknowledged (and, if requested,
+	 *         successfully executed) the batch.
+	 */
+	static boolean send(final int port, final String token,
+		final List<String> commands, final int flags) throws IOException
+	{
+		final byte[] tokenBytes = token.getBytes(StandardCharsets.US_ASCII);
+		final List<byte[]> encoded = new ArrayList<>(commands.size());
+		int size = 16 + tokenBytes.length;
+		for (final String command : commands) {
+			final byte[] bytes = command.getBytes(StandardCharsets.UTF_8);
+			encoded.add(bytes);
+			size += 4 + bytes.length;
+		}
+		if (size > MAX_FRAME_BYTES) throw new IOException("Too many arguments");
+
+		final ByteBuffer frame = ByteBuffer.allocate(size);
+		frame.putInt(MAGIC);
+		frame.putInt(flags);
+		frame.putInt(tokenBytes.length).put(tokenBytes);
+		frame.putInt(encoded.size());
+		for (final byte[] bytes : encoded) {
+			frame.putInt(bytes.length).put(bytes);
+		}
+		frame.flip();
+
+		try (final SocketChannel channel = SocketChannel.open()) {
+			channel.socket().connect(new InetSocketAddress(InetAddress
+				.getLoopbackAddress(), port), TIMEOUT_MILLIS);
+			while (frame.hasRemaining()) {
+				channel.write(frame);
+			}
+			final ByteBuffer ack = ByteBuffer.allocate(1);
+			readFully(channel, ack, System.currentTimeMillis() + TIMEOUT_MILLIS);
+			if (ack.get(0) != ACK) return false;
+			if ((flags & FLAG_WAIT) == 0) return true;
+			ack.clear();
+			readFully(channel, ack, Long.MAX_VALUE);
+			return ack.get(0) == DONE;
+		}
+	}
+
+	// -- Helper methods --
+
+	private void acceptLoop() {
+		while (!closed) {
+			SocketChannel channel = null;
+			try {
+				channel = server.accept();
+				if (receive(channel)) channel = null; // NB: still in use
+			}
+			catch (final IOException exc) {
+				if (!closed) log.debug(exc);
+			}
+			finally {
+				close(channel);
+			}
+		}
+	}
+
+	/**
+	 * Reads and queues a batch of commands.
+	 *
+	 * @return true iff the channel is kept open to report the batch's completion
+	 */
+	private boolean receive(final SocketChannel channel) throws IOException {
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		final ByteBuffer header = ByteBuffer.allocate(12);
+		readFully(channel, header, deadline);
+		if (header.getInt(0) != MAGIC) throw new IOException("Not a command frame");
+		final int flags = header.getInt(4);
+		final byte[] received = readBytes(channel, header.getInt(8),
+			MAX_TOKEN_LENGTH, deadline);
+		if (!MessageDigest.isEqual(token, received)) {
+			log.warn("SingleInstance: rejecting connection with invalid token");
+			channel.write(ByteBuffer.wrap(new byte[] { NACK }));
+			return false;
+		}
+
+		final ByteBuffer count = ByteBuffer.allocate(4);
+		readFully(channel, count, deadline);
+		final int n = count.getInt(0);
+		if (n < 0 || n > MAX_FRAME_BYTES / 4) throw new IOException("Bad count");
+		final List<String> commands = new ArrayList<>(n);
+		int remaining = MAX_FRAME_BYTES;
+		for (int i = 0; i < n; i++) {
+			final ByteBuffer length = ByteBuffer.allocate(4);
+			readFully(channel, length, deadline);
+			final byte[] bytes = readBytes(channel, length.getInt(0), remaining,
+				deadline);
+			remaining -= bytes.length;
+			commands.add(new String(bytes, StandardCharsets.UTF_8));
+		}
+		final CompletableFuture<Void> done = queue.submit(commands);
+		channel.write(ByteBuffer.wrap(new byte[] { ACK }));
+		if ((flags & FLAG_WAIT) == 0) return false;
+
+		done.whenComplete((result, t) -> {
+			try {
+				channel.write(ByteBuffer.wrap(new byte[] { t == null ? DONE
+					: FAILED }));
+			}
+			catch (final IOException exc) {
+				log.debug(exc);
+			}
+			finally {
+				close(channel);
+			}
+		});
+		return true;
+	}
+
+	private void close(final SocketChannel channel) {
+		if (channel == null) return;
+		try {
+			channel.close();
+		}
+		catch (final IOException exc) {
+			log.debug(exc);
+		}
+	}
+
+	private static byte[] readBytes(final SocketChannel channel,
+		final int length, final int max, final long deadline) throws IOException
+	{
+		if (length < 0 || length > max) {
+			throw new IOException("Invalid length: " + length);
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		readFully(channel, buffer, deadline);
+		return buffer.array();
+	}
+
+	/**
+	 * Fills the given buffer from the channel, giving up once the deadline has
+	 * passed.
+	 */
+	private static void readFully(final SocketChannel channel,
+		final ByteBuffer buffer, final long deadline) throws IOException
+	{
+		if (!buffer.hasRemaining()) return;
+		channel.configureBlocking(false);
+		try (final Selector selector = Selector.open()) {
+			channel.register(selector, SelectionKey.OP_READ);
+			while (buffer.hasRemaining()) {
+				final long wait = deadline - System.currentTimeMillis();
+				if (wait <= 0) throw new SocketTimeoutException();
+				if (selector.select(wait) == 0) continue;
+				selector.selectedKeys().clear();
+				if (channel.read(buffer) < 0) throw new EOFException();
+			}
+		}
+		finally {
+			channel.configureBlocking(true);
+		}
+	}
+
+	private static String hex(final byte[] bytes) {
+		final StringBuilder sb = new StringBuilder();
+		for (final byte b : bytes) {
+			sb.append(String.format("%02x", b & 0xff));
+		}
+		return sb.toString();
+	}
+
+}
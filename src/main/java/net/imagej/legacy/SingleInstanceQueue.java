@@ -0,0 +1,172 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.scijava.log.LogService;
+
+/**
+ * Executes the command batches sent by other ImageJ instances, in order, on a
+ * background thread.
+ * <p>
+ * Batches are acknowledged as soon as they are queued, so that the sender
+ * need not wait for images to be opened and displayed. Whatever is queued by
+ * the time the worker gets to it is processed as one pass: runs of
+ * {@code open} commands are collected, repeated paths are dropped, and the
+ * remaining paths are handed to {@link Handler#openAll(List)} together, so
+ * that they can be read in parallel.
+ * </p>
+ */
+class SingleInstanceQueue implements Closeable {
+
+	/** Executes the commands of the queued batches. */
+	interface Handler {
+
+		/** Executes a single command other than {@code open}. */
+		void execute(String command);
+
+		/** Opens the given paths, adding them to the recently opened files. */
+		void openAll(List<String> paths);
+	}
+
+	private static class Batch {
+
+		private final List<String> commands;
+		private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+		private Batch(final List<String> commands) {
+			this.commands = commands;
+		}
+	}
+
+	private static final String OPEN = "open ";
+
+	private final Handler handler;
+	private final LogService log;
+	private final BlockingQueue<Batch> queue = new LinkedBlockingQueue<>();
+	private final Thread worker;
+
+	private volatile boolean closed;
+
+	SingleInstanceQueue(final Handler handler, final LogService log) {
+		this.handler = handler;
+		this.log = log;
+		worker = new Thread(this::workLoop, "ImageJ-SingleInstance-Worker");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Queues a batch of commands.
+	 *
+	 * @return a future which completes once the whole batch was executed.
+	 */
+	CompletableFuture<Void> submit(final List<String> commands) {
+		final Batch batch = new Batch(new ArrayList<>(commands));
+		if (closed) {
+			batch.done.cancel(false);
+		}
+		else {
+			queue.add(batch);
+		}
+		return batch.done;
+	}
+
+	/** Stops the worker; batches which are still queued are canceled. */
+	@Override
+	public void close() {
+		closed = true;
+		worker.interrupt();
+		final List<Batch> pending = new ArrayList<>();
+		queue.drainTo(pending);
+		for (final Batch batch : pending) {
+			batch.done.cancel(false);
+		}
+	}
+
+	// -- Helper methods --
+
+	private void workLoop() {
+		final List<Batch> batches = new ArrayList<>();
+		while (!closed) {
+			try {
+				batches.add(queue.take());
+			}
+			catch (final InterruptedException exc) {
+				break;
+			}
+			queue.drainTo(batches);
+			try {
+				process(batches);
+				for (final Batch batch : batches) {
+					batch.done.complete(null);
+				}
+			}
+			catch (final Throwable t) {
+				log.error(t);
+				for (final Batch batch : batches) {
+					batch.done.completeExceptionally(t);
+				}
+			}
+			batches.clear();
+		}
+	}
+
+	private void process(final List<Batch> batches) {
+		final Set<String> opens = new LinkedHashSet<>();
+		for (final Batch batch : batches) {
+			for (final String command : batch.commands) {
+				if (command.startsWith(OPEN)) {
+					opens.add(command.substring(OPEN.length()));
+					continue;
+				}
+				flush(opens);
+				handler.execute(command);
+			}
+		}
+		flush(opens);
+	}
+
+	private void flush(final Set<String> opens) {
+		if (opens.isEmpty()) return;
+		log.debug("SingleInstance: opening " + opens.size() + " files");
+		handler.openAll(new ArrayList<>(opens));
+		opens.clear();
+	}
+
+}
@@ -0,0 +1,210 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.scijava.log.Logger;
+
+/**
+ * Records how long each phase of the legacy layer's startup takes.
+ * <p>
+ * Each {@link Phase} measures wall time and, where the JVM supports it, the
+ * number of bytes allocated by the thread which ran it. Completed phases are
+ * reported to the {@link Logger} at debug level, and can be retrieved
+ * afterwards via {@link LegacyService#getStartupTimeline()}, or serialized
+ * with {@link #toJSON()} to track cold-start regressions over time.
+ * </p>
+ */
+public class StartupTimeline {
+
+	private final Logger log;
+
+	private final long origin = System.nanoTime();
+
+	private final List<Phase> phases = new ArrayList<>();
+
+	public StartupTimeline(final Logger log) {
+		this.log = log;
+	}
+
+	/**
+	 * Starts timing a new phase on the calling thread. The phase must be
+	 * {@link Phase#end() ended} on the same thread.
+	 */
+	public Phase begin(final String name) {
+		return new Phase(name);
+	}
+
+	/** Gets the phases which have completed so far, in order of completion. */
+	public List<Phase> getPhases() {
+		synchronized (phases) {
+			return Collections.unmodifiableList(new ArrayList<>(phases));
+		}
+	}
+
+	/** Gets the phase with the given name, or null if it has not completed. */
+	public Phase getPhase(final String name) {
+		for (final Phase phase : getPhases()) {
+			if (phase.getName().equals(name)) return phase;
+		}
+		return null;
+	}
+
+	/** Serializes the completed phases as a JSON document. */
+	public String toJSON() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("{\"phases\":[");
+		boolean first = true;
+		for (final Phase phase : getPhases()) {
+			if (first) first = false;
+			else sb.append(",");
+			sb.append("\n  {\"name\":\"").append(escape(phase.getName()));
+			sb.append("\",\"thread\":\"").append(escape(phase.getThreadName()));
+			sb.append("\",\"startNanos\":").append(phase.getStartNanos());
+			sb.append(",\"wallNanos\":").append(phase.getWallNanos());
+			sb.append(",\"allocatedBytes\":").append(phase.getAllocatedBytes());
+			sb.append("}");
+		}
+		sb.append("\n]}\n");
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		for (final Phase phase : getPhases()) {
+			sb.append(phase).append("\n");
+		}
+		return sb.toString();
+	}
+
+	// -- Helper methods --
+
+	private void add(final Phase phase) {
+		synchronized (phases) {
+			phases.add(phase);
+		}
+		if (log != null && log.isDebug()) log.debug("[startup] " + phase);
+	}
+
+	private static String escape(final String s) {
+		return s.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	/**
+	 * Gets the number of bytes allocated so far by the current thread, or -1 if
+	 * the JVM cannot tell.
+	 */
+	private static long allocatedBytes() {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) return -1;
+		final com.sun.management.ThreadMXBean sunBean =
+			(com.sun.management.ThreadMXBean) bean;
+		try {
+			if (!sunBean.isThreadAllocatedMemoryEnabled()) return -1;
+			return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		catch (final UnsupportedOperationException exc) {
+			return -1;
+		}
+	}
+
+	// -- Helper classes --
+
+	/** A single timed phase of the startup sequence. */
+	public class Phase {
+
+		private final String name;
+		private final String threadName;
+		private final long start;
+		private final long startAllocated;
+		private long wallNanos = -1;
+		private long allocatedBytes = -1;
+
+		private Phase(final String name) {
+			this.name = name;
+			threadName = Thread.currentThread().getName();
+			startAllocated = allocatedBytes();
+			start = System.nanoTime();
+		}
+
+		/** Stops timing this phase and adds it to the timeline. */
+		public void end() {
+			if (wallNanos >= 0) return; // already ended
+			wallNanos = System.nanoTime() - start;
+			final long endAllocated = allocatedBytes();
+			if (startAllocated >= 0 && endAllocated >= 0) {
+				allocatedBytes = endAllocated - startAllocated;
+			}
+			add(this);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getThreadName() {
+			return threadName;
+		}
+
+		/** Gets the start of this phase, relative to the timeline's creation. */
+		public long getStartNanos() {
+			return start - origin;
+		}
+
+		/** Gets the wall time of this phase, or -1 if it has not ended. */
+		public long getWallNanos() {
+			return wallNanos;
+		}
+
+		/** Gets the bytes allocated during this phase, or -1 if unknown. */
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append(name).append(": ");
+			sb.append(wallNanos / 1000000).append(" ms");
+			if (allocatedBytes >= 0) {
+				sb.append(", ").append(allocatedBytes / 1024).append(" KiB allocated");
+			}
+			sb.append(" [").append(threadName).append("]");
+			return sb.toString();
+		}
+	}
+
+}
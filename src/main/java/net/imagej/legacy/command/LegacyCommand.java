@@ -31,6 +31,9 @@ package net.imagej.legacy.command;
 
 import ij.IJ;
 import ij.Macro;
+import net.imagej.legacy.LegacyEvents;
+import net.imagej.legacy.LegacyEvents.Event;
+import net.imagej.legacy.LegacyEvents.Type;
 
 import org.scijava.command.Command;
 import org.scijava.plugin.Parameter;
@@ -53,6 +56,7 @@ public class LegacyCommand implements Command {
 
 	@Override
 	public void run() {
+		final Event event = LegacyEvents.begin(Type.COMMAND);
 		try {
 			IJ.runPlugIn(className, arg);
 		}
@@ -61,5 +65,9 @@ public class LegacyCommand implements Command {
 			if (Macro.MACRO_CANCELED.equals(exc.getMessage())) return;
 			throw exc;
 		}
+		finally {
+			LegacyEvents.commit(event, arg == null || arg.isEmpty() ? className
+				: className + "(\"" + arg + "\")");
+		}
 	}
 }
@@ -34,7 +34,6 @@ import ij.ImagePlus;
 import java.util.Collection;
 
 import net.imagej.Dataset;
-import net.imagej.display.ImageDisplay;
 import net.imagej.legacy.LegacyImageMap;
 
 import org.scijava.Priority;
@@ -50,6 +49,10 @@ import org.scijava.plugin.Plugin;
  * NB: should be LOWER priority than any default {@code Converter}s to avoid
  * unintentionally grabbing undesired conversions (e.g. involving nulls).
  * </p>
+ * <p>
+ * The result is registered with the {@link LegacyImageMap}; use
+ * {@link LegacyImageMap#createView(Dataset)} for a transient view instead.
+ * </p>
  *
  * @author Mark Hiner
  * @author Curtis Rueden
@@ -69,16 +72,10 @@ public class DatasetToImagePlusConverter extends
 		if (!legacyEnabled()) throw new UnsupportedOperationException();
 		final Dataset d = (Dataset) src;
 		LegacyImageMap imageMap = legacyService.getImageMap();
-		Object imp = null;
-		// First see if we can find a display already showing our Dataset
-		for (ImageDisplay display : imageMap.getImageDisplays()) {
-			if (display.isDisplaying(d)) {
-				imp = imageMap.lookupImagePlus(display);
-				break;
-			}
-		}
+		// First see if a display, or the batch profile, mapped our Dataset
+		Object imp = imageMap.lookupImagePlus(d);
 		if (imp == null) {
-			// No existing display so register the dataset
+			// No existing mapping so register the dataset
 			imp = imageMap.registerDataset(d);
 		}
 		@SuppressWarnings("unchecked")
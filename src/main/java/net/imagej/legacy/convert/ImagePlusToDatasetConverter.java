@@ -32,7 +32,6 @@ package net.imagej.legacy.convert;
 import ij.ImagePlus;
 
 import net.imagej.Dataset;
-import net.imagej.display.ImageDisplay;
 import net.imagej.display.ImageDisplayService;
 
 import org.scijava.Priority;
@@ -69,10 +68,8 @@ public class ImagePlusToDatasetConverter extends
 		}
 
 		// Convert using the LegacyImageMap
-		final ImageDisplay display =
-			legacyService.getImageMap().registerLegacyImage((ImagePlus) src);
-
-		final Dataset dataset = imageDisplayService.getActiveDataset(display);
+		final Dataset dataset =
+			legacyService.getImageMap().registerLegacyDataset((ImagePlus) src);
 		return (T) dataset;
 	}
 
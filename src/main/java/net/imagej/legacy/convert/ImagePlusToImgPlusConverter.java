@@ -37,7 +37,6 @@ import org.scijava.plugin.Plugin;
 import ij.ImagePlus;
 import net.imagej.Dataset;
 import net.imagej.ImgPlus;
-import net.imagej.display.ImageDisplay;
 import net.imagej.display.ImageDisplayService;
 
 /**
@@ -69,10 +68,8 @@ public class ImagePlusToImgPlusConverter extends
 		}
 
 		// Convert using the LegacyImageMap
-		final ImageDisplay display =
-			legacyService.getImageMap().registerLegacyImage((ImagePlus) src);
-
-		final Dataset dataset = imageDisplayService.getActiveDataset(display);
+		final Dataset dataset =
+			legacyService.getImageMap().registerLegacyDataset((ImagePlus) src);
 		return (T) dataset.getImgPlus();
 	}
 
@@ -36,6 +36,7 @@ import java.util.Collection;
 import net.imagej.Dataset;
 import net.imagej.DatasetService;
 import net.imagej.ImgPlus;
+import net.imagej.legacy.LegacyImageMap;
 
 import org.scijava.Priority;
 import org.scijava.convert.Converter;
@@ -50,6 +51,10 @@ import org.scijava.plugin.Plugin;
  * NB: should be LOWER priority than any default {@code Converter}s to avoid
  * unintentionally grabbing undesired conversions (e.g. involving nulls).
  * </p>
+ * <p>
+ * The result is registered with the {@link LegacyImageMap}; use
+ * {@link LegacyImageMap#createView(Dataset)} for a transient view instead.
+ * </p>
  *
  * @author Mark Hiner
  * @author Curtis Rueden
@@ -72,7 +77,8 @@ public class ImgPlusToImagePlusConverter extends
 		if (!legacyEnabled()) throw new UnsupportedOperationException();
 		final ImgPlus d = (ImgPlus) src;
 		final Dataset ds = datasetService.create(d);
-		final Object imp = legacyService.getImageMap().registerDataset(ds);
+		final LegacyImageMap imageMap = legacyService.getImageMap();
+		final Object imp = imageMap.registerDataset(ds);
 		@SuppressWarnings("unchecked")
 		final T typedImp = (T) imp;
 		return typedImp;
@@ -33,27 +33,56 @@ import ij.ImagePlus;
 
 import io.scif.Metadata;
 import io.scif.app.SCIFIOApp;
+import io.scif.config.SCIFIOConfig;
+import io.scif.img.ImgMode;
 import io.scif.img.SCIFIOImgPlus;
+import io.scif.services.DatasetIOService;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
 
 import net.imagej.Dataset;
 import net.imagej.display.DefaultImageDisplay;
 import net.imagej.display.ImageDisplay;
 import net.imagej.legacy.IJ1Helper;
 import net.imagej.legacy.ImageJ2Options;
+import net.imagej.legacy.LegacyEvents;
+import net.imagej.legacy.LegacyEvents.Event;
+import net.imagej.legacy.LegacyEvents.Type;
 import net.imagej.legacy.LegacyImageMap;
 import net.imagej.legacy.LegacyService;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
 
 import org.scijava.Cancelable;
 import org.scijava.Context;
 import org.scijava.Priority;
 import org.scijava.app.App;
 import org.scijava.app.AppService;
+import org.scijava.app.StatusService;
 import org.scijava.command.CommandInfo;
 import org.scijava.command.CommandService;
 import org.scijava.display.DisplayService;
+import org.scijava.event.EventHandler;
+import org.scijava.event.EventService;
+import org.scijava.event.EventSubscriber;
 import org.scijava.io.IOPlugin;
 import org.scijava.io.IOService;
 import org.scijava.log.LogService;
@@ -61,8 +90,14 @@ import org.scijava.module.Module;
 import org.scijava.module.ModuleService;
 import org.scijava.options.OptionsService;
 import org.scijava.plugin.Plugin;
+import org.scijava.plugin.PluginInfo;
 import org.scijava.plugin.PluginService;
+import org.scijava.plugin.event.PluginsAddedEvent;
+import org.scijava.plugin.event.PluginsRemovedEvent;
 import org.scijava.service.Service;
+import org.scijava.task.Task;
+import org.scijava.task.TaskService;
+import org.scijava.thread.ThreadService;
 
 /**
  * The default {@link LegacyOpener} plugin.
@@ -79,6 +114,16 @@ public class DefaultLegacyOpener implements LegacyOpener {
 
 	private static final String EAGER = "eager";
 
+	/** Number of leading bytes identifying the type of a file. */
+	private static final int MAGIC_LENGTH = 16;
+
+	/**
+	 * Maximum number of bytes of a progressively opened image which are read in
+	 * the background: 256 MiB, or an eighth of the maximum heap if less.
+	 */
+	private static final long PREFETCH_BYTES = Math.min(256L << 20, //
+		Runtime.getRuntime().maxMemory() / 8);
+
 	private LegacyService legacyService;
 	private DisplayService displayService;
 	private ModuleService moduleService;
@@ -88,37 +133,158 @@ public class DefaultLegacyOpener implements LegacyOpener {
 	private IOService ioService;
 	private LogService logService;
 	private PluginService pluginService;
+	private EventService eventService;
+	private DatasetIOService datasetIOService;
+	private StatusService statusService;
+	private TaskService taskService;
+	private ThreadService threadService;
+
+	/** Subscribers to plugin events, which invalidate the caches below. */
+	private List<EventSubscriber<?>> subscribers;
+
+	/** Cached instances of the eager I/O plugins, used to probe and open. */
+	private volatile List<IOPlugin<?>> eagerPlugins;
 
-	private IOPlugin<?> getEagerHandler(String path) {
-		return ioService.getPlugins() //
-			.stream() //
-			.filter(info -> info.is(EAGER)) //
-			// HACK: This crappier map syntax with cast is needed to make javac happy.
-			.map(info -> (IOPlugin<?>) pluginService.createInstance(info)) //
-			.filter(io -> io.supportsOpen(path)) //
-			.findFirst() //
-			.orElse(null);
+	/** Eager I/O plugin (if any) for each file type; see {@link #typeKey}. */
+	private final Map<String, Optional<IOPlugin<?>>> eagerHandlers =
+		new ConcurrentHashMap<>();
+
+	/** SciJava I/O opener (if any) for each file type; see {@link #typeKey}. */
+	private final Map<String, Optional<IOPlugin<?>>> openers =
+		new ConcurrentHashMap<>();
+
+	private final AtomicLong cacheHits = new AtomicLong();
+	private final AtomicLong cacheMisses = new AtomicLong();
+
+	/**
+	 * Gets how many times the I/O plugin for a path was resolved from the
+	 * cache.
+	 */
+	public long getCacheHits() {
+		return cacheHits.get();
+	}
+
+	/**
+	 * Gets how many times the I/O plugin for a path had to be determined by
+	 * probing the available I/O plugins.
+	 */
+	public long getCacheMisses() {
+		return cacheMisses.get();
+	}
+
+	/**
+	 * Discards the cached eager I/O plugins and the per-type I/O plugin
+	 * resolutions. This happens automatically whenever plugins are added to or
+	 * removed from the context.
+	 */
+	public void invalidateCaches() {
+		eagerPlugins = null;
+		eagerHandlers.clear();
+		openers.clear();
+	}
+
+	/** Gets the eager I/O plugin which can open the given path, if any. */
+	private IOPlugin<?> getEagerHandler(final String path) {
+		return resolve(eagerHandlers, path, () -> {
+			for (final IOPlugin<?> io : eagerPlugins()) {
+				if (io.supportsOpen(path)) return io;
+			}
+			return null;
+		});
+	}
+
+	/** Gets the SciJava I/O plugin which can open the given path, if any. */
+	private IOPlugin<?> getOpener(final String path) {
+		return resolve(openers, path, () -> ioService.getOpener(path));
+	}
+
+	private List<IOPlugin<?>> eagerPlugins() {
+		List<IOPlugin<?>> plugins = eagerPlugins;
+		if (plugins == null) {
+			plugins = new ArrayList<>();
+			for (final PluginInfo<?> info : ioService.getPlugins()) {
+				if (!info.is(EAGER)) continue;
+				// HACK: This cast is needed to make javac happy.
+				final IOPlugin<?> io = (IOPlugin<?>) pluginService.createInstance(info);
+				if (io != null) plugins.add(io);
+			}
+			eagerPlugins = plugins;
+		}
+		return plugins;
+	}
+
+	/**
+	 * Looks up the I/O plugin for the given path in the given cache, falling back
+	 * to the given (expensive) probe and remembering its result.
+	 * <p>
+	 * A cached plugin is confirmed with its own
+	 * {@link IOPlugin#supportsOpen(String)} before it is used, and the full probe
+	 * only runs again when it declines: files of one type may still differ in
+	 * ways the {@link #typeKey} cannot tell, e.g. plain TIFF, ImageJ TIFF and
+	 * OME-TIFF files differ only in their image description.
+	 * </p>
+	 * <p>
+	 * The plugin instances are reused across opens, like the singleton instances
+	 * handed out by the {@link IOService}; so they may open several files
+	 * concurrently (see {@link #open(List, boolean)}).
+	 * </p>
+	 */
+	private IOPlugin<?> resolve(final Map<String, Optional<IOPlugin<?>>> cache,
+		final String path, final Supplier<IOPlugin<?>> probe)
+	{
+		final String key = typeKey(path);
+		final Optional<IOPlugin<?>> cached = key == null ? null : cache.get(key);
+		if (cached != null && //
+			(!cached.isPresent() || cached.get().supportsOpen(path)))
+		{
+			cacheHits.incrementAndGet();
+			return cached.orElse(null);
+		}
+		cacheMisses.incrementAndGet();
+		final IOPlugin<?> io = probe.get();
+		if (key != null) cache.put(key, Optional.ofNullable(io));
+		return io;
+	}
+
+	/**
+	 * Gets a key identifying the type of the given file: its lower-case
+	 * extension plus its first {@link #MAGIC_LENGTH} bytes, which hold the magic
+	 * number of most image formats.
+	 *
+	 * @return The key, or null if the path is not a readable local file.
+	 */
+	private String typeKey(final String path) {
+		final File file = new File(path);
+		if (!file.isFile()) return null;
+		final String name = file.getName();
+		final int dot = name.lastIndexOf('.');
+		final StringBuilder key = new StringBuilder();
+		if (dot >= 0) key.append(name.substring(dot + 1).toLowerCase());
+		key.append(':');
+		final byte[] magic = new byte[MAGIC_LENGTH];
+		int length = 0;
+		try (final InputStream in = new FileInputStream(file)) {
+			int r;
+			while (length < magic.length && //
+				(r = in.read(magic, length, magic.length - length)) > 0)
+			{
+				length += r;
+			}
+		}
+		catch (final IOException exc) {
+			return null;
+		}
+		for (int i = 0; i < length; i++) {
+			key.append(String.format("%02x", magic[i]));
+		}
+		return key.toString();
 	}
 
 	@Override
 	public Object open(String path, final int planeIndex,
 		final boolean displayResult)
 	{
-		final Context c = IJ1Helper.getLegacyContext();
-
-		legacyService = getCached(legacyService, LegacyService.class, c);
-		displayService = getCached(displayService, DisplayService.class, c);
-		moduleService = getCached(moduleService, ModuleService.class, c);
-		commandService = getCached(commandService, CommandService.class, c);
-		optionsService = getCached(optionsService, OptionsService.class, c);
-		appService = getCached(appService, AppService.class, c);
-		ioService = getCached(ioService, IOService.class, c);
-		logService = getCached(logService, LogService.class, c);
-		pluginService = getCached(pluginService, PluginService.class, c);
-
-		// Check to see if SCIFIO has been disabled
-		final boolean newStyleIO =
-			optionsService.getOptions(ImageJ2Options.class).isSciJavaIO();
+		final Context c = initServices();
 
 		// Ensure path is not null.
 		if (path == null) {
@@ -142,21 +308,129 @@ public class DefaultLegacyOpener implements LegacyOpener {
 		}
 		if (path == null) return Boolean.TRUE; // cancel the operation
 
+		final Event event = LegacyEvents.begin(Type.OPEN);
+		try {
+			return handleData(c, readData(path), path, displayResult);
+		}
+		finally {
+			LegacyEvents.commit(event, path);
+		}
+	}
+
+	/**
+	 * Opens the given paths, reading their data concurrently on the context's
+	 * {@link ThreadService}, with a bounded number of reads in flight.
+	 * <p>
+	 * Only the registration and display of each opened image happens on the
+	 * calling thread, in order, as soon as its data is ready; so opening many
+	 * files is bounded by disk throughput rather than by per-file latency.
+	 * </p>
+	 */
+	@Override
+	public List<Object> open(final List<String> paths,
+		final boolean displayResult)
+	{
+		final Context c = initServices();
+		if (paths.size() <= 1 || threadService == null) {
+			return LegacyOpener.super.open(paths, displayResult);
+		}
+
+		// NB: Keep a bounded number of files in flight, so that decoded data
+		// does not pile up faster than it can be displayed.
+		final int window = 2 * Runtime.getRuntime().availableProcessors();
+		final List<Future<Object>> reads = new ArrayList<>();
+		final List<Object> results = new ArrayList<>();
+		try {
+			for (int i = 0; i < paths.size(); i++) {
+				while (reads.size() < paths.size() && reads.size() < i + window) {
+					final String path = paths.get(reads.size());
+					reads.add(threadService.run(() -> readData(path)));
+				}
+				Object data;
+				try {
+					data = reads.get(i).get();
+				}
+				catch (final ExecutionException exc) {
+					legacyService.handleException(exc.getCause());
+					data = null;
+				}
+				catch (final InterruptedException exc) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+				reads.set(i, null); // release the data
+				results.add(handleData(c, data, paths.get(i), displayResult));
+			}
+			return results;
+		}
+		finally {
+			// cancel the reads which are no longer awaited
+			for (final Future<Object> read : reads) {
+				if (read != null) read.cancel(true);
+			}
+		}
+	}
+
+	// -- Helper methods --
+
+	/** Looks up the services needed from the legacy context. */
+	private Context initServices() {
+		final Context c = IJ1Helper.getLegacyContext();
+
+		legacyService = getCached(legacyService, LegacyService.class, c);
+		displayService = getCached(displayService, DisplayService.class, c);
+		moduleService = getCached(moduleService, ModuleService.class, c);
+		commandService = getCached(commandService, CommandService.class, c);
+		optionsService = getCached(optionsService, OptionsService.class, c);
+		appService = getCached(appService, AppService.class, c);
+		ioService = getCached(ioService, IOService.class, c);
+		logService = getCached(logService, LogService.class, c);
+		pluginService = getCached(pluginService, PluginService.class, c);
+		eventService = getCached(eventService, EventService.class, c);
+		datasetIOService = getCached(datasetIOService, DatasetIOService.class, c);
+		statusService = getCached(statusService, StatusService.class, c);
+		taskService = getCached(taskService, TaskService.class, c);
+		threadService = getCached(threadService, ThreadService.class, c);
+		if (subscribers == null && eventService != null) {
+			subscribers = eventService.subscribe(this);
+		}
+		return c;
+	}
+
+	/**
+	 * Reads the data at the given path, without displaying or registering it.
+	 *
+	 * @return The data, or null to fall back to the original ImageJ.
+	 */
+	private Object readData(final String path) {
+		// Check to see if SCIFIO has been disabled
+		final ImageJ2Options options =
+			optionsService.getOptions(ImageJ2Options.class);
+		final boolean newStyleIO = options.isSciJavaIO();
+
 		// And now it's time to open the path to get the data!
 		final Object data;
 		try {
-			if (newStyleIO) {
+			if (newStyleIO && options.isProgressiveOpen() && //
+				datasetIOService != null && datasetIOService.canOpen(path))
+			{
+				// Open the data as a cell image, which reads planes on demand.
+				final SCIFIOConfig config = //
+					new SCIFIOConfig().imgOpenerSetImgModes(ImgMode.CELL);
+				data = datasetIOService.open(path, config);
+			}
+			else if (newStyleIO) {
 				// With ImageJ2-style I/O enabled, we ask the SciJava I/O
 				// service to open the data using any available I/O plugin.
-				final IOPlugin<?> opener = ioService.getOpener(path);
+				final IOPlugin<?> opener = getOpener(path);
 				if (opener == null) {
 					logService.warn("No appropriate format found: " + path);
-					return path;
+					return null;
 				}
 				data = opener.open(path);
 				if (data == null) {
 					logService.warn("Opening was canceled.");
-					return path;
+					return null;
 				}
 			}
 			else {
@@ -173,30 +447,28 @@ public class DefaultLegacyOpener implements LegacyOpener {
 					final IOPlugin<?> io = getEagerHandler(path);
 					if (io == null) {
 						logService.debug("No appropriate eager I/O plugin found: " + path);
-						return path; // fall back to original ImageJ
+						return null; // fall back to original ImageJ
 					}
 					data = io.open(path);
 					if (data == null) {
 						logService.debug("Eager I/O plugin '" + io.getClass().getName() + "' opened nothing.");
-						return path; // fall back to original ImageJ
+						return null; // fall back to original ImageJ
 					}
 				}
 				catch (final IOException exc) {
 					legacyService.handleException(exc);
-					return path; // fall back to original ImageJ
+					return null; // fall back to original ImageJ
 				}
 			}
 		}
 		catch (final IOException exc) {
 			legacyService.handleException(exc);
-			return path; // fall back to original ImageJ
+			return null; // fall back to original ImageJ
 		}
 
-		return handleData(c, data, path, displayResult);
+		return data;
 	}
 
-	// -- Helper methods --
-
 	private Object handleData(Context c, Object data, String path, boolean displayResult) {
 		if (data == null) return path;
 
@@ -255,6 +527,10 @@ public class DefaultLegacyOpener implements LegacyOpener {
 				}
 			}
 
+			if (optionsService.getOptions(ImageJ2Options.class).isProgressiveOpen()) {
+				loadInBackground(d);
+			}
+
 			if (imp != null) {
 				final String existingInfo = (String) imp.getProperty("Info");
 				if (existingInfo != null) {
@@ -267,8 +543,103 @@ public class DefaultLegacyOpener implements LegacyOpener {
 		return data;
 	}
 
+	/**
+	 * Loads the leading cells of a lazily loaded cell image in the background,
+	 * reporting progress via the task monitor and status bar, so that browsing
+	 * through the first planes does not wait for the data to be read. At most
+	 * {@link #PREFETCH_BYTES} are read; the remaining cells are read on demand,
+	 * as their planes are viewed.
+	 */
+	private void loadInBackground(final Dataset d) {
+		final Img<?> img = d.getImgPlus().getImg();
+		if (!(img instanceof AbstractCellImg) || threadService == null) return;
+		final long cellCount = Math.min(Intervals.numElements(
+			((AbstractCellImg<?, ?, ?, ?>) img).getCells()), //
+			Math.max(1, PREFETCH_BYTES / cellBytes(d)));
+		if (cellCount < 2) return; // nothing left to load
+
+		final String message = "Loading " + d.getName();
+		final Task task = taskService == null ? null : //
+			taskService.createTask(message);
+		threadService.run(() -> {
+			if (task != null) {
+				task.setProgressMaximum(cellCount);
+				task.start();
+			}
+			try {
+				prefetch(d, PREFETCH_BYTES, loaded -> {
+					if (task != null) task.setProgressValue(loaded);
+					if (statusService != null && loaded % 16 == 0) {
+						statusService.showStatus((int) loaded, (int) cellCount, message);
+					}
+					return task == null || !task.isCanceled();
+				});
+			}
+			catch (final RuntimeException exc) {
+				logService.error("Error loading " + d.getName(), exc);
+			}
+			finally {
+				if (task != null) task.finish();
+				if (statusService != null) statusService.clearStatus();
+			}
+		});
+	}
+
+	/**
+	 * Reads the cells of the given lazily loaded cell image in order, starting
+	 * with those of the first planes, until the given number of bytes is read.
+	 *
+	 * @param progress Told the number of cells read so far after each cell;
+	 *          returns whether to go on. May be null.
+	 * @return The number of cells read, or 0 if the image is not a cell image.
+	 */
+	static long prefetch(final Dataset d, final long maxBytes,
+		final LongPredicate progress)
+	{
+		final Img<?> img = d.getImgPlus().getImg();
+		if (!(img instanceof AbstractCellImg)) return 0;
+		final RandomAccessibleInterval<?> cells = //
+			((AbstractCellImg<?, ?, ?, ?>) img).getCells();
+		final long cellLimit = Math.min(Intervals.numElements(cells), //
+			Math.max(1, maxBytes / cellBytes(d)));
+		final Iterator<?> iter = Views.flatIterable(cells).iterator();
+		long loaded = 0;
+		while (loaded < cellLimit && iter.hasNext()) {
+			// NB: Accessing a cell of a lazily loaded image reads its data.
+			if (iter.next() == null) break;
+			loaded++;
+			if (progress != null && !progress.test(loaded)) break;
+		}
+		return loaded;
+	}
+
+	/** Gets the size in bytes of a full cell of the given cell image. */
+	private static long cellBytes(final Dataset d) {
+		final CellGrid grid = //
+			((AbstractCellImg<?, ?, ?, ?>) d.getImgPlus().getImg()).getCellGrid();
+		long elements = 1;
+		for (int i = 0; i < grid.numDimensions(); i++) {
+			elements *= grid.cellDimension(i);
+		}
+		return Math.max(1, (elements * d.getType().getBitsPerPixel() + 7) / 8);
+	}
+
 	private <T extends Service> T getCached(T service, Class<T> serviceClass, Context ctx) {
 		if (service != null) return service;
 		return ctx.getService(serviceClass);
 	}
+
+	// -- Event handlers --
+
+	@EventHandler
+	private void onEvent(@SuppressWarnings("unused") final PluginsAddedEvent evt) {
+		invalidateCaches();
+	}
+
+	@EventHandler
+	private void onEvent(
+		@SuppressWarnings("unused") final PluginsRemovedEvent evt)
+	{
+		invalidateCaches();
+	}
 }
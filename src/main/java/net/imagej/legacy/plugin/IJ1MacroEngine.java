@@ -41,6 +41,9 @@ import javax.script.Bindings;
 import javax.script.ScriptException;
 
 import net.imagej.legacy.IJ1Helper;
+import net.imagej.legacy.LegacyEvents;
+import net.imagej.legacy.LegacyEvents.Event;
+import net.imagej.legacy.LegacyEvents.Type;
 
 import org.scijava.module.ModuleItem;
 import org.scijava.script.AbstractScriptEngine;
@@ -115,6 +118,17 @@ public class IJ1MacroEngine extends AbstractScriptEngine {
 
 	@Override
 	public Object eval(final String macro) throws ScriptException {
+		final Event event = LegacyEvents.begin(Type.MACRO);
+		try {
+			return evalMacro(macro);
+		}
+		finally {
+			LegacyEvents.commit(event, module == null ? null : module.getInfo()
+				.getPath());
+		}
+	}
+
+	private Object evalMacro(final String macro) {
 		// collect input variable key/value pairs from bindings + module inputs
 		final LinkedHashMap<String, Object> inVars = new LinkedHashMap<>();
 		inVars.putAll(engineScopeBindings);
@@ -29,6 +29,9 @@
 
 package net.imagej.legacy.plugin;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.scijava.plugin.SciJavaPlugin;
 
 /**
@@ -56,4 +59,27 @@ public interface LegacyOpener extends SciJavaPlugin {
 	 */
 	Object open(final String path, final int planeIndex,
 		final boolean displayResult);
+
+	/**
+	 * Optionally override opening several resources at once via legacy hooks,
+	 * e.g. when a folder is dropped onto the main window.
+	 * <p>
+	 * The default implementation opens each path in turn.
+	 * </p>
+	 *
+	 * @param paths the paths to the resources to open
+	 * @param displayResult if true, the opened objects should be displayed
+	 *          before returning
+	 * @return For each path, in order, the result of opening it as per
+	 *         {@link #open(String, int, boolean)}.
+	 */
+	default List<Object> open(final List<String> paths,
+		final boolean displayResult)
+	{
+		final List<Object> results = new ArrayList<>();
+		for (final String path : paths) {
+			results.add(open(path, -1, displayResult));
+		}
+		return results;
+	}
 }
@@ -0,0 +1,488 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy.translate;
+
+import ij.ImageStack;
+import ij.VirtualStack;
+import ij.process.ByteProcessor;
+import ij.process.ColorProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.scijava.thread.ThreadService;
+
+/**
+ * A {@link VirtualStack} which caches the planes of another
+ * {@link ImageStack}.
+ * <p>
+ * Planes of stacks wrapping non-native or cell-backed images are computed
+ * anew on every access, which makes scrolling through large, lazily loaded
+ * images stutter. This stack keeps the most recently used planes and
+ * prefetches the next planes in the direction of navigation in the
+ * background. All stacks share one cache, whose memory budget is set by
+ * {@link #setMaxBytes(long)}. Every access still returns a fresh copy of the
+ * plane, as the wrapped stack would, so that modifications by legacy ImageJ
+ * do not leak into the cache; {@link #setPixels(Object, int)} writes through
+ * to the wrapped stack.
+ * </p>
+ */
+public class CachingVirtualStack extends VirtualStack {
+
+	/**
+	 * System property specifying the memory budget shared by all plane caches,
+	 * in bytes; {@code 0} disables plane caching.
+	 */
+	public static final String MAX_BYTES_PROPERTY =
+		"imagej.legacy.planeCache.maxBytes";
+
+	/** Number of planes to prefetch in the direction of navigation. */
+	private static final int PREFETCH_DEPTH = 2;
+
+	/**
+	 * The cached planes of all stacks, in order of access, by stack ID (upper
+	 * 32 bits) and plane index (lower 32 bits).
+	 */
+	private static final LinkedHashMap<Long, Object> CACHE =
+		new LinkedHashMap<>(16, 0.75f, true);
+
+	/** The number of bytes held by {@link #CACHE}; guarded by it. */
+	private static long cacheBytes;
+
+	private static volatile long maxBytes = getDefaultMaxBytes();
+
+	private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+	private final int id = NEXT_ID.incrementAndGet();
+
+	private final ImageStack source;
+
+	private final ThreadService threadService;
+
+	/**
+	 * The planes which are currently being prefetched; guarded by
+	 * {@link #CACHE}.
+	 */
+	private final Map<Integer, CompletableFuture<Object>> pending =
+		new HashMap<>();
+
+	private volatile int lastIndex;
+
+	/** Incremented whenever cached planes become stale. */
+	private volatile int generation;
+
+	/** Labels reported for planes which the wrapped stack has none for. */
+	private volatile String[] sliceLabels;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong prefetches = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Wraps the given stack, prefetching planes via the given thread service.
+	 *
+	 * @param threadService The service running the prefetching, or null not to
+	 *          prefetch.
+	 */
+	public CachingVirtualStack(final ImageStack source,
+		final ThreadService threadService)
+	{
+		super(source.getWidth(), source.getHeight(), source.getColorModel(), null);
+		this.source = source;
+		this.threadService = threadService;
+		setBitDepth(source.getBitDepth());
+	}
+
+	/**
+	 * Gets the memory budget shared by all plane caches, as configured by the
+	 * {@value #MAX_BYTES_PROPERTY} system property, defaulting to a sixteenth
+	 * of the maximum heap size, but at most 64 MB.
+	 */
+	public static long getDefaultMaxBytes() {
+		final String value = System.getProperty(MAX_BYTES_PROPERTY);
+		if (value != null) {
+			try {
+				return Long.parseLong(value);
+			}
+			catch (final NumberFormatException exc) {
+				// NB: Fall back to the default.
+			}
+		}
+		return Math.min(64L << 20, Runtime.getRuntime().maxMemory() / 16);
+	}
+
+	/** Gets the memory budget shared by all plane caches, in bytes. */
+	public static long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Sets the memory budget shared by all plane caches, in bytes, evicting the
+	 * least recently used planes as needed; {@code 0} disables plane caching.
+	 */
+	public static void setMaxBytes(final long bytes) {
+		synchronized (CACHE) {
+			maxBytes = bytes;
+			evict();
+		}
+	}
+
+	/** Gets the number of bytes occupied by the planes of all stacks. */
+	public static long getTotalCachedBytes() {
+		synchronized (CACHE) {
+			return cacheBytes;
+		}
+	}
+
+	/** Gets the wrapped stack. */
+	public ImageStack getSource() {
+		return source;
+	}
+
+	// -- Cache statistics --
+
+	/** Gets the number of plane accesses served from the cache. */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/** Gets the number of plane accesses which had to compute the plane. */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/** Gets the number of planes computed ahead of time. */
+	public long getPrefetchCount() {
+		return prefetches.get();
+	}
+
+	/**
+	 * Gets the number of planes evicted to stay within the memory budget when
+	 * this stack cached a plane.
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/** Gets the number of bytes currently occupied by this stack's planes. */
+	public long getCachedBytes() {
+		long bytes = 0;
+		synchronized (CACHE) {
+			for (final Map.Entry<Long, Object> entry : CACHE.entrySet()) {
+				if (owns(entry.getKey())) bytes += bytes(entry.getValue());
+			}
+		}
+		return bytes;
+	}
+
+	/** Discards all cached planes, including those being prefetched. */
+	public void clearCache() {
+		synchronized (CACHE) {
+			generation++;
+			final Iterator<Map.Entry<Long, Object>> iter = //
+				CACHE.entrySet().iterator();
+			while (iter.hasNext()) {
+				final Map.Entry<Long, Object> entry = iter.next();
+				if (!owns(entry.getKey())) continue;
+				cacheBytes -= bytes(entry.getValue());
+				iter.remove();
+			}
+			pending.clear();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CachingVirtualStack[hits=" + getHitCount() + ", misses=" +
+			getMissCount() + ", prefetches=" + getPrefetchCount() + ", evictions=" +
+			getEvictionCount() + ", cached=" + getCachedBytes() + "/" + maxBytes +
+			" bytes]";
+	}
+
+	// -- VirtualStack methods --
+
+	@Override
+	public ImageProcessor getProcessor(final int n) {
+		return createProcessor(getPixels(n), n);
+	}
+
+	@Override
+	public Object getPixels(final int n) {
+		final Object plane = plane(n);
+		prefetch(n);
+		return copy(plane);
+	}
+
+	@Override
+	public void setPixels(final Object pixels, final int n) {
+		synchronized (source) {
+			source.setPixels(pixels, n);
+		}
+		synchronized (CACHE) {
+			generation++;
+			final Object plane = CACHE.remove(key(n));
+			if (plane != null) cacheBytes -= bytes(plane);
+			pending.remove(n);
+		}
+	}
+
+	@Override
+	public void deleteSlice(final int n) {
+		synchronized (source) {
+			source.deleteSlice(n);
+		}
+		clearCache();
+	}
+
+	@Override
+	public void addSlice(final String sliceLabel, final Object pixels) {
+		synchronized (source) {
+			source.addSlice(sliceLabel, pixels);
+		}
+	}
+
+	@Override
+	public int getSize() {
+		return source.getSize();
+	}
+
+	@Override
+	public String getSliceLabel(final int n) {
+		final String label = source.getSliceLabel(n);
+		if (label != null) return label;
+		final String[] labels = sliceLabels;
+		return labels != null && n >= 1 && n <= labels.length ? labels[n - 1]
+			: null;
+	}
+
+	/**
+	 * Provides default slice labels, looked up on demand by
+	 * {@link #getSliceLabel(int)} for planes the wrapped stack has no label
+	 * for, rather than being copied into the wrapped stack plane by plane.
+	 */
+	public void setSliceLabels(final String[] labels) {
+		sliceLabels = labels;
+	}
+
+	@Override
+	public void setSliceLabel(final String label, final int n) {
+		source.setSliceLabel(label, n);
+	}
+
+	@Override
+	public int getBitDepth() {
+		return source.getBitDepth();
+	}
+
+	// -- Helper methods --
+
+	/** Gets the cached plane, computing it if necessary. */
+	private Object plane(final int n) {
+		final CompletableFuture<Object> future;
+		final int gen;
+		// NB: A prefetched plane is cached before it stops being pending, so
+		// looking up both at once never misses it.
+		synchronized (CACHE) {
+			final Object plane = CACHE.get(key(n));
+			if (plane != null) {
+				hits.incrementAndGet();
+				return plane;
+			}
+			future = pending.get(n);
+			gen = generation;
+		}
+		if (future != null) {
+			try {
+				final Object plane = future.get();
+				if (gen == generation) {
+					hits.incrementAndGet();
+					return plane;
+				}
+				// NB: The plane went stale meanwhile; compute it anew, below.
+			}
+			catch (final InterruptedException exc) {
+				Thread.currentThread().interrupt();
+			}
+			catch (final ExecutionException exc) {
+				// NB: Compute the plane ourselves, below.
+			}
+		}
+		misses.incrementAndGet();
+		final int current = generation;
+		final Object plane = read(n);
+		put(n, plane, current);
+		return plane;
+	}
+
+	/**
+	 * Prefetches the planes following the given one, in navigation order, one
+	 * after the other.
+	 */
+	private void prefetch(final int n) {
+		final int step = n - lastIndex;
+		lastIndex = n;
+		if (step == 0 || threadService == null || maxBytes <= 0) return;
+		final List<Integer> indices = new ArrayList<>();
+		final List<CompletableFuture<Object>> futures = new ArrayList<>();
+		final int gen;
+		synchronized (CACHE) {
+			for (int i = 1; i <= PREFETCH_DEPTH; i++) {
+				final int next = n + i * step;
+				if (next < 1 || next > getSize()) break;
+				if (CACHE.containsKey(key(next)) || pending.containsKey(next)) continue;
+				final CompletableFuture<Object> future = new CompletableFuture<>();
+				pending.put(next, future);
+				indices.add(next);
+				futures.add(future);
+			}
+			gen = generation;
+		}
+		if (indices.isEmpty()) return;
+		threadService.run(() -> {
+			for (int i = 0; i < indices.size(); i++) {
+				final int next = indices.get(i);
+				final CompletableFuture<Object> future = futures.get(i);
+				try {
+					final Object plane = read(next);
+					prefetches.incrementAndGet();
+					put(next, plane, gen);
+					future.complete(plane);
+				}
+				catch (final Throwable t) {
+					future.completeExceptionally(t);
+				}
+				finally {
+					synchronized (CACHE) {
+						pending.remove(next, future);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Reads a plane of the wrapped stack. Reads are serialized, since wrapped
+	 * images are generally not safe to access from several threads at once.
+	 */
+	private Object read(final int n) {
+		synchronized (source) {
+			return source.getPixels(n);
+		}
+	}
+
+	/** Caches the plane, unless it was computed before the cache went stale. */
+	private void put(final int n, final Object plane, final int gen) {
+		if (plane == null) return;
+		synchronized (CACHE) {
+			if (gen != generation || maxBytes <= 0) return;
+			final Object old = CACHE.put(key(n), plane);
+			if (old != null) cacheBytes -= bytes(old);
+			cacheBytes += bytes(plane);
+			evictions.addAndGet(evict());
+		}
+	}
+
+	/**
+	 * Evicts the least recently used planes until the cache fits into its
+	 * budget; must be called while holding the lock on {@link #CACHE}.
+	 *
+	 * @return The number of evicted planes.
+	 */
+	private static int evict() {
+		int evicted = 0;
+		final Iterator<Object> iter = CACHE.values().iterator();
+		while (cacheBytes > maxBytes && iter.hasNext()) {
+			cacheBytes -= bytes(iter.next());
+			iter.remove();
+			evicted++;
+		}
+		return evicted;
+	}
+
+	private long key(final int n) {
+		return (long) id << 32 | n;
+	}
+
+	private boolean owns(final long key) {
+		return (int) (key >>> 32) == id;
+	}
+
+	/** Gets the size of the given plane in bytes. */
+	private static long bytes(final Object plane) {
+		final Class<?> type = plane.getClass().getComponentType();
+		if (type == null) return 0;
+		final int bytesPerElement = type == byte.class ? 1 : //
+			type == short.class ? 2 : type == double.class ? 8 : 4;
+		return (long) Array.getLength(plane) * bytesPerElement;
+	}
+
+	private static Object copy(final Object plane) {
+		if (plane == null) return null;
+		final int length = Array.getLength(plane);
+		final Object copy = Array.newInstance(plane.getClass().getComponentType(),
+			length);
+		System.arraycopy(plane, 0, copy, 0, length);
+		return copy;
+	}
+
+	private ImageProcessor createProcessor(final Object pixels, final int n) {
+		final int w = getWidth(), h = getHeight();
+		final ImageProcessor ip;
+		if (pixels instanceof byte[]) {
+			ip = new ByteProcessor(w, h, (byte[]) pixels, null);
+		}
+		else if (pixels instanceof short[]) {
+			ip = new ShortProcessor(w, h, (short[]) pixels, null);
+		}
+		else if (pixels instanceof float[]) {
+			ip = new FloatProcessor(w, h, (float[]) pixels, null);
+		}
+		else if (pixels instanceof int[]) {
+			ip = new ColorProcessor(w, h, (int[]) pixels);
+		}
+		else return source.getProcessor(n);
+		if (getColorModel() != null) ip.setColorModel(getColorModel());
+		return ip;
+	}
+
+}
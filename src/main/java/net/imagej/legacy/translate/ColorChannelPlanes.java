@@ -0,0 +1,225 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy.translate;
+
+import ij.ImagePlus;
+import ij.ImageStack;
+
+import java.util.stream.IntStream;
+
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.CalibratedAxis;
+import net.imagej.axis.DefaultLinearAxis;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.img.planar.PlanarImgs;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+
+/**
+ * Splits RGB {@link ImagePlus}es into materialized 8-bit channel planes.
+ * <p>
+ * By default, {@link DisplayCreator} splits RGB images into channels via
+ * converting views, which unpack every pixel on every access. Materializing
+ * the channels instead costs one pass over the image, after which modern
+ * operations read plain {@code byte[]} planes. The planes are a copy, though:
+ * upon harmonization, {@link #synchronize} propagates modifications of either
+ * side to the other, for the planes which changed since they were last in
+ * sync.
+ * </p>
+ */
+public final class ColorChannelPlanes {
+
+	/**
+	 * System property enabling materialized channel planes; see
+	 * {@link DisplayCreator#setMaterializeColorChannels(boolean)}.
+	 */
+	public static final String MATERIALIZE_PROPERTY =
+		"imagej.legacy.materializeColorChannels";
+
+	/**
+	 * Key marking an {@link ImgPlus} created by {@link #split}; its value holds
+	 * the {@link #hash} of each plane, as of the last synchronization.
+	 */
+	private static final String PROPERTY_KEY = "imagej.legacy.colorChannelPlanes";
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private ColorChannelPlanes() {
+		// prevent from instantiation
+	}
+
+	/**
+	 * Copies the channels of an RGB image into a planar image with a channel
+	 * axis following the X and Y axes.
+	 *
+	 * @param imp the RGB image whose stack holds the pixels
+	 * @param input the image wrapping {@code imp}, providing the axes
+	 * @return the channel planes, or null if the image cannot be materialized,
+	 *         e.g. because it is a virtual stack
+	 */
+	static ImgPlus<UnsignedByteType> split(final ImagePlus imp,
+		final ImgPlus<ARGBType> input)
+	{
+		final ImageStack stack = imp.getStack();
+		if (stack.isVirtual()) return null;
+		final int n = input.numDimensions();
+		final long[] dims = new long[n + 1];
+		dims[0] = input.dimension(0);
+		dims[1] = input.dimension(1);
+		dims[2] = 3;
+		long planeCount = 1;
+		for (int d = 2; d < n; d++) {
+			dims[d + 1] = input.dimension(d);
+			planeCount *= dims[d + 1];
+		}
+		if (planeCount != stack.getSize()) return null;
+
+		final PlanarImg<UnsignedByteType, ByteArray> img = PlanarImgs
+			.unsignedBytes(dims);
+		final long[] hashes = new long[stack.getSize()];
+		IntStream.range(0, stack.getSize()).parallel().forEach(k -> {
+			final int[] pixels = (int[]) stack.getPixels(k + 1);
+			unpack(pixels, img, k);
+			hashes[k] = hash(pixels);
+		});
+
+		final CalibratedAxis[] axes = new CalibratedAxis[n + 1];
+		axes[0] = input.axis(0).copy();
+		axes[1] = input.axis(1).copy();
+		axes[2] = new DefaultLinearAxis(Axes.CHANNEL);
+		for (int d = 2; d < n; d++)
+			axes[d + 1] = input.axis(d).copy();
+		final ImgPlus<UnsignedByteType> result = new ImgPlus<>(img, input
+			.getName(), axes);
+		result.getProperties().put(PROPERTY_KEY, hashes);
+		return result;
+	}
+
+	/** Returns true iff the given image was created by {@link #split}. */
+	public static boolean isMaterialized(final ImgPlus<?> imgPlus) {
+		return imgPlus != null && imgPlus.getProperties().get(
+			PROPERTY_KEY) instanceof long[] && imgPlus.getImg() instanceof PlanarImg;
+	}
+
+	/**
+	 * Synchronizes the channel planes with the {@code int[]} planes of the RGB
+	 * image they were split from. Planes modified on the modern side are packed
+	 * back into the RGB image; planes modified only by legacy ImageJ are split
+	 * anew. Planes which did not change are left alone.
+	 */
+	@SuppressWarnings("unchecked")
+	static void synchronize(final ImgPlus<?> imgPlus, final ImagePlus imp) {
+		if (!isMaterialized(imgPlus) || imp.getType() != ImagePlus.COLOR_RGB) {
+			return;
+		}
+		final PlanarImg<UnsignedByteType, ByteArray> img =
+			(PlanarImg<UnsignedByteType, ByteArray>) imgPlus.getImg();
+		final long[] hashes = (long[]) imgPlus.getProperties().get(PROPERTY_KEY);
+		final ImageStack stack = imp.getStack();
+		if (img.numSlices() != 3 * stack.getSize() ||
+			hashes.length != stack.getSize()) return;
+		IntStream.range(0, stack.getSize()).parallel().forEach(k -> {
+			final int[] pixels = (int[]) stack.getPixels(k + 1);
+			final long modern = hash(img, k);
+			final long legacy = hash(pixels);
+			if (modern == legacy) {
+				hashes[k] = modern;
+			}
+			else if (modern == hashes[k]) {
+				// only legacy ImageJ modified the plane
+				unpack(pixels, img, k);
+				hashes[k] = legacy;
+			}
+			else {
+				// NB: If both sides changed, the modern side wins.
+				pack(img, k, pixels);
+				hashes[k] = modern;
+			}
+		});
+	}
+
+	// -- Helper methods --
+
+	/** Splits the given RGB plane into the channel planes of plane {@code k}. */
+	private static void unpack(final int[] pixels,
+		final PlanarImg<UnsignedByteType, ByteArray> img, final int k)
+	{
+		final byte[] r = img.getPlane(3 * k).getCurrentStorageArray();
+		final byte[] g = img.getPlane(3 * k + 1).getCurrentStorageArray();
+		final byte[] b = img.getPlane(3 * k + 2).getCurrentStorageArray();
+		for (int i = 0; i < pixels.length; i++) {
+			final int argb = pixels[i];
+			r[i] = (byte) (argb >> 16);
+			g[i] = (byte) (argb >> 8);
+			b[i] = (byte) argb;
+		}
+	}
+
+	/** Packs the channel planes of plane {@code k} into the given RGB plane. */
+	private static void pack(final PlanarImg<UnsignedByteType, ByteArray> img,
+		final int k, final int[] pixels)
+	{
+		final byte[] r = img.getPlane(3 * k).getCurrentStorageArray();
+		final byte[] g = img.getPlane(3 * k + 1).getCurrentStorageArray();
+		final byte[] b = img.getPlane(3 * k + 2).getCurrentStorageArray();
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = (pixels[i] & 0xff000000) | (r[i] & 0xff) << 16 |
+				(g[i] & 0xff) << 8 | (b[i] & 0xff);
+		}
+	}
+
+	/** Hashes the RGB values of the given plane. */
+	private static long hash(final int[] pixels) {
+		long hash = FNV_OFFSET;
+		for (int i = 0; i < pixels.length; i++)
+			hash = (hash ^ (pixels[i] & 0xffffff)) * FNV_PRIME;
+		return hash;
+	}
+
+	/** Hashes the RGB values of plane {@code k}, as {@link #hash(int[])}. */
+	private static long hash(final PlanarImg<UnsignedByteType, ByteArray> img,
+		final int k)
+	{
+		final byte[] r = img.getPlane(3 * k).getCurrentStorageArray();
+		final byte[] g = img.getPlane(3 * k + 1).getCurrentStorageArray();
+		final byte[] b = img.getPlane(3 * k + 2).getCurrentStorageArray();
+		long hash = FNV_OFFSET;
+		for (int i = 0; i < r.length; i++) {
+			final int rgb = (r[i] & 0xff) << 16 | (g[i] & 0xff) << 8 | (b[i] & 0xff);
+			hash = (hash ^ rgb) * FNV_PRIME;
+		}
+		return hash;
+	}
+
+}
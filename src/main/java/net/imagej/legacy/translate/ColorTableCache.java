@@ -0,0 +1,124 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy.translate;
+
+import java.awt.image.IndexColorModel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.imagej.display.ColorTables;
+import net.imglib2.display.ColorTable8;
+
+/**
+ * Interns {@link ColorTable8}s, so that identical color tables converted from
+ * legacy ImageJ LUTs are shared instances rather than fresh copies.
+ * <p>
+ * The cache is seeded with the standard {@link ColorTables}, and keeps the
+ * most recently used other tables. Interned tables are shared: do not modify
+ * their values. In particular, the standard tables are the very
+ * {@link ColorTables#GRAYS}, {@link ColorTables#RED} etc. instances used
+ * throughout the application, and {@link ColorTable8#getValues()} exposes
+ * their arrays; writing to them changes those colors everywhere.
+ * </p>
+ */
+final class ColorTableCache {
+
+	/** Maximal number of interned tables besides the standard ones. */
+	private static final int CAPACITY = 64;
+
+	private static final ColorTable8[] STANDARD = { ColorTables.GRAYS,
+		ColorTables.RED, ColorTables.GREEN, ColorTables.BLUE, ColorTables.CYAN,
+		ColorTables.MAGENTA, ColorTables.YELLOW };
+
+	private static final Map<Key, ColorTable8> standard = new LinkedHashMap<>();
+
+	private static final Map<Key, ColorTable8> recent =
+		new LinkedHashMap<Key, ColorTable8>(16, 0.75f, true)
+		{
+
+			@Override
+			protected boolean removeEldestEntry(
+				final Map.Entry<Key, ColorTable8> eldest)
+			{
+				return size() > CAPACITY;
+			}
+		};
+
+	static {
+		for (final ColorTable8 table : STANDARD) {
+			standard.put(new Key(table.getValues()), table);
+		}
+	}
+
+	private ColorTableCache() {
+		// prevent from instantiation
+	}
+
+	/** Gets the shared color table with the colors of the given model. */
+	static ColorTable8 intern(final IndexColorModel icm) {
+		final byte[] reds = new byte[256];
+		final byte[] greens = new byte[256];
+		final byte[] blues = new byte[256];
+		icm.getReds(reds);
+		icm.getGreens(greens);
+		icm.getBlues(blues);
+		final byte[][] values = { reds, greens, blues };
+		final Key key = new Key(values);
+		final ColorTable8 table = standard.get(key);
+		if (table != null) return table;
+		synchronized (recent) {
+			return recent.computeIfAbsent(key, k -> new ColorTable8(values));
+		}
+	}
+
+	/** Compares color tables by value. */
+	private static class Key {
+
+		private final byte[][] values;
+		private final int hash;
+
+		private Key(final byte[][] values) {
+			this.values = values;
+			hash = Arrays.deepHashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			return o instanceof Key && Arrays.deepEquals(values, ((Key) o).values);
+		}
+	}
+
+}
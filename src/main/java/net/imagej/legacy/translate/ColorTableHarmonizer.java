@@ -242,6 +242,9 @@ public class ColorTableHarmonizer implements DisplayHarmonizer {
 			//   Unfortunately setLUTs() does not use min/max of passed in LUTs. So
 			//   can't tweak and set back. So we'll cycle through the channels setting
 			//   min/max and make sure channel set where it started when we're done.
+			//   Changing the channel reloads its pixels, so we skip all of this if
+			//   every channel already has the right range.
+			if (hasDisplayRanges(ci, min, max)) return;
 			int origC = ci.getC();
 			for (int i = 0; i < channelCount; i++) {
 				ci.setC(i+1);
@@ -257,6 +260,11 @@ public class ColorTableHarmonizer implements DisplayHarmonizer {
 			// as a possible bug on 7-27-12. If he removes reset() call from that
 			// method then the manipulation of snapshot pixels can be removed.
 
+			// NB - resetting the range of color data rewrites its pixels; skip it
+			// if the range did not change.
+			if (imp.getDisplayRangeMin() == overallMin &&
+				imp.getDisplayRangeMax() == overallMax) return;
+
 			// save info
 			ImageProcessor proc = imp.getProcessor();
 			Object snapshot = proc.getSnapshotPixels();
@@ -270,18 +278,26 @@ public class ColorTableHarmonizer implements DisplayHarmonizer {
 		}
 	}
 
+	/**
+	 * Returns true iff each channel of the given CompositeImage already has the
+	 * given display range.
+	 */
+	private boolean hasDisplayRanges(final CompositeImage ci, final double[] min,
+		final double[] max)
+	{
+		for (int c = 0; c < min.length; c++) {
+			final LUT lut = ci.getChannelLut(c + 1);
+			if (lut == null || lut.min != min[c] || lut.max != max[c]) return false;
+		}
+		return true;
+	}
+
 	/**
 	 * Makes a ColorTable8 from an IndexColorModel. Note that legacy ImageJ LUT's
-	 * are a kind of IndexColorModel.
+	 * are a kind of IndexColorModel. Identical tables are shared instances.
 	 */
 	private ColorTable8 make8BitColorTable(final IndexColorModel icm) {
-		final byte[] reds = new byte[256];
-		final byte[] greens = new byte[256];
-		final byte[] blues = new byte[256];
-		icm.getReds(reds);
-		icm.getGreens(greens);
-		icm.getBlues(blues);
-		return new ColorTable8(reds, greens, blues);
+		return ColorTableCache.intern(icm);
 	}
 
 	/**
@@ -413,6 +429,8 @@ public class ColorTableHarmonizer implements DisplayHarmonizer {
 			if (mn > mx) {
 				throw new IllegalArgumentException("Bad display range setting");
 			}
+			// NB: Avoid needless updates of the view when nothing changed.
+			if (view.getChannelMin(c) == mn && view.getChannelMax(c) == mx) continue;
 			view.setChannelRange(c, mn, mx);
 		}
 	}
@@ -0,0 +1,137 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy.translate;
+
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+
+import java.lang.reflect.Array;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+import net.imagej.ImgPlus;
+
+/**
+ * An {@link ImageStack} holding all planes of a converting stack, converted
+ * up front and in parallel.
+ * <p>
+ * The planes are a copy of the wrapped image; after the wrapped image
+ * changed, {@link #refresh(int)} marks them as stale, and each stale plane is
+ * converted anew, in place, when it is next accessed.
+ * </p>
+ */
+public class ConvertedStack extends ImageStack {
+
+	private final ImgPlus<?> source;
+
+	private final ImageStack lazy;
+
+	/** The planes which need to be converted anew; guarded by itself. */
+	private final BitSet stale = new BitSet();
+
+	ConvertedStack(final ImgPlus<?> source, final ImageStack lazy) {
+		super(lazy.getWidth(), lazy.getHeight(), lazy.getColorModel());
+		this.source = source;
+		this.lazy = lazy;
+		final Object[] planes = new Object[lazy.getSize()];
+		IntStream.range(0, planes.length).parallel().forEach(
+			i -> planes[i] = lazy.getPixels(i + 1));
+		for (int i = 0; i < planes.length; i++)
+			addSlice(lazy.getSliceLabel(i + 1), planes[i]);
+	}
+
+	/** Gets the image whose planes this stack holds. */
+	public ImgPlus<?> getSource() {
+		return source;
+	}
+
+	/**
+	 * Marks all planes as stale after the wrapped image changed, and converts
+	 * the given (e.g. the displayed) plane anew right away. The other planes
+	 * are converted anew when they are next accessed. Planes are copied into
+	 * the existing pixel arrays, so that processors referring to them see the
+	 * new values.
+	 *
+	 * @return false if the planes no longer correspond to those of the wrapped
+	 *         image, e.g. because planes were deleted.
+	 */
+	public boolean refresh(final int current) {
+		if (getSize() != lazy.getSize()) return false;
+		synchronized (stale) {
+			stale.set(0, getSize());
+		}
+		update(current);
+		return true;
+	}
+
+	// -- ImageStack methods --
+
+	@Override
+	public Object getPixels(final int n) {
+		update(n);
+		return super.getPixels(n);
+	}
+
+	@Override
+	public void setPixels(final Object pixels, final int n) {
+		synchronized (stale) {
+			// NB: Pixels set by legacy ImageJ are newer than the wrapped ones.
+			if (n >= 1) stale.clear(n - 1);
+			super.setPixels(pixels, n);
+		}
+	}
+
+	@Override
+	public ImageProcessor getProcessor(final int n) {
+		update(n);
+		return super.getProcessor(n);
+	}
+
+	@Override
+	public Object[] getImageArray() {
+		for (int n = 1; n <= getSize(); n++)
+			update(n);
+		return super.getImageArray();
+	}
+
+	// -- Helper methods --
+
+	/** Converts the given plane anew, if it is stale. */
+	private void update(final int n) {
+		synchronized (stale) {
+			if (n < 1 || !stale.get(n - 1)) return;
+			stale.clear(n - 1);
+			final Object pixels = super.getPixels(n);
+			System.arraycopy(lazy.getPixels(n), 0, pixels, 0, Array.getLength(
+				pixels));
+		}
+	}
+
+}
@@ -52,6 +52,12 @@ public class DatasetUtils {
 	/**
 	 * Allocates the color table array within a new planar Dataset (one table per
 	 * plane). Each color table will be assigned null.
+	 * <p>
+	 * NB: The slots are allocated densely, even for deep stacks: the list is
+	 * owned by the {@link net.imagej.ImgPlus}, whose
+	 * {@code setColorTable(table, i)} requires a slot for every plane it is
+	 * called with, so it cannot be backed by a sparse store from here.
+	 * </p>
 	 * 
 	 * @param ds The Dataset to modify
 	 */
@@ -79,6 +79,9 @@ public class DisplayCreator extends AbstractContextual
 	@Parameter
 	private DisplayService displayService;
 
+	private boolean materializeColorChannels =
+		Boolean.getBoolean(ColorChannelPlanes.MATERIALIZE_PROPERTY);
+
 	public DisplayCreator( final Context context )
 	{
 		setContext(context);
@@ -93,6 +96,40 @@ public class DisplayCreator extends AbstractContextual
 		return makeDisplay(imp);
 	}
 
+	/**
+	 * Creates a {@link Dataset} linked to the given {@link ImagePlus}, with
+	 * data, calibration and channel compositing but without an
+	 * {@link ImageDisplay}. Use {@link #createDisplay(ImagePlus, Dataset)} to
+	 * show it later.
+	 */
+	public Dataset createDataset(final ImagePlus imp) {
+		final Dataset ds = getDataset(imp);
+		compositeHarmonizer.updateDataset(ds, imp);
+		return ds;
+	}
+
+	/**
+	 * Creates an {@link ImageDisplay} of a {@link Dataset} previously created by
+	 * {@link #createDataset(ImagePlus)}, harmonizing its visual state with the
+	 * given {@link ImagePlus}.
+	 */
+	public ImageDisplay createDisplay(final ImagePlus imp, final Dataset ds) {
+		return harmonizeExceptPixels(imp, ds);
+	}
+
+	/**
+	 * Sets whether the channels of RGB images are copied into 8-bit planes,
+	 * rather than exposed as converting views of the packed RGB pixels. See
+	 * {@link ColorChannelPlanes}.
+	 */
+	public void setMaterializeColorChannels(final boolean materialize) {
+		materializeColorChannels = materialize;
+	}
+
+	public boolean isMaterializeColorChannels() {
+		return materializeColorChannels;
+	}
+
 	/**
 	 * @return A {@link Dataset} appropriate for the given {@link ImagePlus}
 	 */
@@ -153,6 +190,11 @@ public class DisplayCreator extends AbstractContextual
 	{
 		if (imp.getType() == ImagePlus.COLOR_RGB) {
 			ImgPlus<ARGBType> colored = VirtualStackAdapter.wrapRGBA( imp );
+			if (materializeColorChannels) {
+				final ImgPlus<UnsignedByteType> channels =
+					ColorChannelPlanes.split( imp, colored );
+				if (channels != null) return channels;
+			}
 			// TODO: This special treatment of Img<ARGBType> is wrongly placed.
 			return splitColorChannels(colored);
 		}
@@ -32,13 +32,16 @@ package net.imagej.legacy.translate;
 import ij.ImagePlus;
 import ij.ImageStack;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import net.imagej.Dataset;
 import net.imagej.ImgPlus;
 import net.imagej.display.ImageDisplay;
 import net.imagej.display.ImageDisplayService;
+import net.imagej.legacy.LegacyEvents;
+import net.imagej.legacy.LegacyEvents.Event;
+import net.imagej.legacy.LegacyEvents.Type;
 import net.imagej.legacy.LegacyService;
 
 import org.scijava.AbstractContextual;
@@ -65,6 +68,8 @@ public class Harmonizer extends AbstractContextual {
 	private final PositionHarmonizer positionHarmonizer;
 	private final NameHarmonizer nameHarmonizer;
 
+	private boolean displayHarmonization = true;
+
 	@Parameter
 	private ImageDisplayService imageDisplayService;
 
@@ -77,7 +82,7 @@ public class Harmonizer extends AbstractContextual {
 	{
 		setContext(context);
 		imageTranslator = trans;
-		bitDepthMap = new HashMap<>();
+		bitDepthMap = new WeakHashMap<>();
 		colorTableHarmonizer = new ColorTableHarmonizer(imageDisplayService);
 		metadataHarmonizer = new MetadataHarmonizer();
 		compositeHarmonizer = new CompositeHarmonizer();
@@ -96,6 +101,84 @@ public class Harmonizer extends AbstractContextual {
 	public void
 		updateLegacyImage(final ImageDisplay display, final ImagePlus imp)
 	{
+		final Event event = LegacyEvents.begin(Type.UPDATE_LEGACY_IMAGE);
+		try {
+			harmonizeLegacyImage(display, imp);
+		}
+		finally {
+			commit(event, display, imp);
+		}
+	}
+
+	/**
+	 * Changes the data within a {@link ImageDisplay} to match data in an
+	 * {@link ImagePlus}. Assumes the given ImagePlus is not a degenerate set of
+	 * data (an empty stack).
+	 */
+	public void updateDisplay(final ImageDisplay display, final ImagePlus imp) {
+		final Event event = LegacyEvents.begin(Type.UPDATE_DISPLAY);
+		try {
+			harmonizeDisplay(display, imp);
+		}
+		finally {
+			commit(event, display, imp);
+		}
+	}
+
+	/**
+	 * Sets whether {@link #updateDisplay(ImageDisplay, ImagePlus)} also
+	 * synchronizes visual state: color tables, overlays and thresholds, position
+	 * and name. When disabled, e.g. for batch processing, only data, calibration
+	 * and channel compositing are synchronized, and
+	 * {@link #updateDisplayState(ImageDisplay, ImagePlus)} can catch up later.
+	 */
+	public void setDisplayHarmonization(final boolean enabled) {
+		displayHarmonization = enabled;
+	}
+
+	public boolean isDisplayHarmonization() {
+		return displayHarmonization;
+	}
+
+	/**
+	 * Changes the visual state of a {@link ImageDisplay} (color tables,
+	 * overlays, position and name) to match an {@link ImagePlus}, leaving the
+	 * data alone.
+	 */
+	public void updateDisplayState(final ImageDisplay display,
+		final ImagePlus imp)
+	{
+		colorTableHarmonizer.updateDisplay(display, imp);
+		// NB - correct thresholding behavior requires overlay harmonization after
+		// color table harmonization
+		if (ResolutionPyramid.getView(imp) == null) {
+			overlayHarmonizer.updateDisplay(display, imp);
+		}
+		positionHarmonizer.updateDisplay(display, imp);
+		nameHarmonizer.updateDisplay(display, imp);
+	}
+
+	/**
+	 * Remembers the type of an {@link ImagePlus}. This type can be checked after
+	 * a call to a plugin to see if the ImagePlus underwent a type change.
+	 */
+	public void registerType(final ImagePlus imp) {
+		if (imp == null) return;
+		bitDepthMap.put(imp, imp.getBitDepth());
+	}
+
+	// -- private interface --
+
+	private void harmonizeLegacyImage(final ImageDisplay display,
+		final ImagePlus imp)
+	{
+		if (ResolutionPyramid.getView(imp) != null) {
+			// NB: A downsampled view keeps its data, and the calibration of its level.
+			colorTableHarmonizer.updateLegacyImage(display, imp);
+			positionHarmonizer.updateLegacyImage(display, imp);
+			nameHarmonizer.updateLegacyImage(display, imp);
+			return;
+		}
 		final Dataset ds = imageDisplayService.getActiveDataset(display);
 		rebuildImagePlusData(display, imp);
 		metadataHarmonizer.updateLegacyImage(ds, imp);
@@ -107,13 +190,9 @@ public class Harmonizer extends AbstractContextual {
 		nameHarmonizer.updateLegacyImage(display, imp);
 	}
 
-	/**
-	 * Changes the data within a {@link ImageDisplay} to match data in an
-	 * {@link ImagePlus}. Assumes the given ImagePlus is not a degenerate set of
-	 * data (an empty stack).
-	 */
-	public void updateDisplay(final ImageDisplay display, final ImagePlus imp) {
-
+	private void harmonizeDisplay(final ImageDisplay display,
+		final ImagePlus imp)
+	{
 		// NB - if ImagePlus is degenerate the following code can fail. This is
 		// because imglib cannot represent an empty data container. So we catch
 		// the issue here:
@@ -122,6 +201,14 @@ public class Harmonizer extends AbstractContextual {
 			throw new IllegalArgumentException(
 					"cannot update a display with an ImagePlus that has an empty stack");
 
+		if (ResolutionPyramid.getView(imp) != null) {
+			// NB: Never replace the full resolution data by a downsampled view.
+			colorTableHarmonizer.updateDisplay(display, imp);
+			positionHarmonizer.updateDisplay(display, imp);
+			nameHarmonizer.updateDisplay(display, imp);
+			return;
+		}
+
 		final Dataset ds = imageDisplayService.getActiveDataset(display);
 
 		// did type of ImagePlus change?
@@ -140,12 +227,7 @@ public class Harmonizer extends AbstractContextual {
 		rebuildDatasetData(ds, imp);
 		metadataHarmonizer.updateDataset(ds, imp);
 		compositeHarmonizer.updateDataset(ds, imp);
-		colorTableHarmonizer.updateDisplay(display, imp);
-		// NB - correct thresholding behavior requires overlay harmonization after
-		// color table harmonization
-		overlayHarmonizer.updateDisplay(display, imp);
-		positionHarmonizer.updateDisplay(display, imp);
-		nameHarmonizer.updateDisplay(display, imp);
+		if (displayHarmonization) updateDisplayState(display, imp);
 
 		// TODO - this should not be necessary but Blobs will not display inverted
 		// without this. When we change the update mechanism so that drawing only
@@ -157,17 +239,14 @@ public class Harmonizer extends AbstractContextual {
 		//ds.update();
 	}
 
-	/**
-	 * Remembers the type of an {@link ImagePlus}. This type can be checked after
-	 * a call to a plugin to see if the ImagePlus underwent a type change.
-	 */
-	public void registerType(final ImagePlus imp) {
-		if (imp == null) return;
-		bitDepthMap.put(imp, imp.getBitDepth());
+	private static void commit(final Event event, final ImageDisplay display,
+		final ImagePlus imp)
+	{
+		if (event == null) return;
+		LegacyEvents.commit(event, display.getName(), imp.getDimensions(),
+			LegacyUtils.sizeInBytes(imp));
 	}
 
-	// -- private interface --
-
 	/**
 	 * Creates a new {@link ImageStack} of data from a {@link ImageDisplay} and
 	 * assigns it to given {@link ImagePlus}
@@ -178,9 +257,26 @@ public class Harmonizer extends AbstractContextual {
 	private void rebuildImagePlusData(final ImageDisplay display,
 		final ImagePlus imp)
 	{
-		final ImagePlus newImp = legacyService.getImageMap().registerDisplay(display);
-		if(imp == newImp)
-			return;
+		ImagePlus newImp = legacyService.getImageMap().registerDisplay(display);
+		if(imp == newImp) {
+			// NB: Materialized color channels are a copy; propagate their changes.
+			final Dataset ds = imageDisplayService.getActiveDataset(display);
+			if (ds != null) ColorChannelPlanes.synchronize(ds.getImgPlus(), imp);
+			// NB: The wrapped data may have changed, so cached planes are stale.
+			if (imp.getStack() instanceof CachingVirtualStack) {
+				((CachingVirtualStack) imp.getStack()).clearCache();
+			}
+			if (!(imp.getStack() instanceof ConvertedStack)) return;
+			// NB: Converted planes are a copy, too; convert them anew.
+			final ConvertedStack converted = (ConvertedStack) imp.getStack();
+			if (ds != null && converted.getSource() == ds.getImgPlus() && //
+				converted.refresh(imp.getCurrentSlice()))
+			{
+				return;
+			}
+			newImp = imageTranslator.createLegacyImage(ds);
+			if (newImp == null) return;
+		}
 		imp.setStack(newImp.getStack());
 		final int c = newImp.getNChannels();
 		final int z = newImp.getNSlices();
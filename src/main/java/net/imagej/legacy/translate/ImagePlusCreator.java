@@ -38,17 +38,22 @@ import net.imagej.axis.Axes;
 import net.imagej.display.ImageDisplay;
 import net.imagej.display.ImageDisplayService;
 import net.imglib2.img.display.imagej.ArrayImgToVirtualStack;
+import net.imglib2.img.display.imagej.CalibrationUtils;
 import net.imglib2.img.display.imagej.ImgPlusViews;
 import net.imglib2.img.display.imagej.ImgToVirtualStack;
 import net.imglib2.img.display.imagej.PlanarImgToVirtualStack;
 import net.imglib2.type.logic.BitType;
 import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.util.Util;
 
 import org.scijava.AbstractContextual;
 import org.scijava.Context;
 import org.scijava.log.LogService;
 import org.scijava.plugin.Parameter;
+import org.scijava.thread.ThreadService;
 
 /**
  * Creates {@link ImagePlus}es from {@link ImageDisplay}.
@@ -59,6 +64,12 @@ import org.scijava.plugin.Parameter;
 public class ImagePlusCreator extends AbstractContextual
 {
 
+	/**
+	 * System property enabling the eager conversion of pixel types which are
+	 * not native to legacy ImageJ; see {@link #setEagerConversion(boolean)}.
+	 */
+	public static final String EAGER_PROPERTY = "imagej.legacy.eagerConversion";
+
 	// -- instance variables --
 
 	private final ColorTableHarmonizer colorTableHarmonizer;
@@ -71,6 +82,15 @@ public class ImagePlusCreator extends AbstractContextual
 	@Parameter
 	private LogService log;
 
+	@Parameter(required = false)
+	private ThreadService threadService;
+
+	/** Whether to convert non-native planes up front, rather than lazily. */
+	private boolean eagerConversion = Boolean.getBoolean(EAGER_PROPERTY);
+
+	/** Maximal number of bytes to convert up front. */
+	private long eagerConversionMaxBytes = Runtime.getRuntime().maxMemory() / 4;
+
 	// -- public interface --
 
 	public ImagePlusCreator(final Context context) {
@@ -80,6 +100,31 @@ public class ImagePlusCreator extends AbstractContextual
 		nameHarmonizer = new NameHarmonizer();
 	}
 
+	/**
+	 * Sets whether planes whose pixel type is not native to legacy ImageJ
+	 * (e.g. {@code DoubleType}, {@code BitType} or merged RGB) are converted
+	 * all at once, in parallel, when the {@link ImagePlus} is created. By
+	 * default, they are converted lazily, whenever a plane is accessed. Images
+	 * exceeding {@link #setEagerConversionMaxBytes(long)} are always converted
+	 * lazily.
+	 */
+	public void setEagerConversion(final boolean eagerConversion) {
+		this.eagerConversion = eagerConversion;
+	}
+
+	public boolean isEagerConversion() {
+		return eagerConversion;
+	}
+
+	/** Sets the maximal number of bytes of converted planes held in memory. */
+	public void setEagerConversionMaxBytes(final long maxBytes) {
+		eagerConversionMaxBytes = maxBytes;
+	}
+
+	public long getEagerConversionMaxBytes() {
+		return eagerConversionMaxBytes;
+	}
+
 	public ImagePlus createLegacyImage(final ImageDisplay display) {
 		final Dataset dataset = imageDisplayService.getActiveDataset(display);
 		return createLegacyImage(dataset, display);
@@ -93,7 +138,9 @@ public class ImagePlusCreator extends AbstractContextual
 		final ImageDisplay display)
 	{
 		if (dataset == null) return null;
-		ImagePlus imp = createImagePlus( dataset );
+		ImagePlus imp = LegacyUtils.needsResolutionPyramid( dataset ) ?
+			createPyramidImage( dataset ) :
+			createImagePlus( dataset.getImgPlus(), dataset.isRGBMerged() );
 		ImagePlusCreatorUtils.setMetadata( dataset, imp );
 		imp = optionalMakeComposite( dataset, imp );
 		if (display != null) {
@@ -105,9 +152,78 @@ public class ImagePlusCreator extends AbstractContextual
 		return imp;
 	}
 
-	private static ImagePlus createImagePlus( Dataset dataset )
+	/**
+	 * Creates a transient {@link ImagePlus} view of the given {@link Dataset},
+	 * for handing it to a single legacy ImageJ call. Planes are wrapped without
+	 * being cached or converted up front, and no metadata is copied beyond what
+	 * the wrapping itself provides.
+	 *
+	 * @throws IllegalArgumentException if the planes are too large for legacy
+	 *           ImageJ: they could only be shown downsampled, which is a copy
+	 *           registered with a {@link ResolutionPyramid}, not a view. Use
+	 *           {@link #createRegionImage} to process such images instead.
+	 */
+	public ImagePlus createLegacyView(final Dataset dataset)
+	{
+		if (dataset == null) return null;
+		if (LegacyUtils.needsResolutionPyramid( dataset ))
+			throw new IllegalArgumentException( "planes of " + dataset.getName() +
+				" are too large for a legacy view; use a region image instead" );
+		final ImagePlus imp =
+			createImagePlus( dataset.getImgPlus(), dataset.isRGBMerged(), true );
+		return optionalMakeComposite( dataset, imp );
+	}
+
+	/**
+	 * Creates an {@link ImagePlus} of a region of the given {@link Dataset}, at
+	 * full resolution. This is the way to process images whose planes are too
+	 * large for legacy ImageJ, and which are therefore shown downsampled (see
+	 * {@link ResolutionPyramid}).
+	 */
+	public ImagePlus createRegionImage(final Dataset dataset, final long x,
+		final long y, final int width, final int height)
+	{
+		if ((long) width * height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("region is too large: " + width +
+				" x " + height);
+		}
+		final ImgPlus<? extends RealType<?>> region =
+			LegacyUtils.cropXY(dataset.getImgPlus(), x, y, width, height);
+		ImagePlus imp = createImagePlus( region, dataset.isRGBMerged() );
+		imp.setTitle(dataset.getName() + " [" + x + "," + y + " " + width + "x" +
+			height + "]");
+		CalibrationUtils.copyCalibrationToImagePlus( region, imp );
+		imp = optionalMakeComposite( dataset, imp );
+		return imp;
+	}
+
+	private ImagePlus createPyramidImage( Dataset dataset )
+	{
+		final ResolutionPyramid pyramid =
+			new ResolutionPyramid( dataset.getImgPlus() );
+		final int level =
+			pyramid.getLevelFor( ResolutionPyramid.getDefaultMaxPlanePixels() );
+		final ImgPlus< ? extends RealType< ? > > imgPlus = pyramid.getLevel( level );
+		final ImagePlus imp = createImagePlus( imgPlus, dataset.isRGBMerged() );
+		CalibrationUtils.copyCalibrationToImagePlus( imgPlus, imp );
+		pyramid.register( imp, level );
+		return imp;
+	}
+
+	private ImagePlus createImagePlus(
+		ImgPlus< ? extends RealType< ? > > imgPlus, boolean rgbMerged )
+	{
+		return createImagePlus( imgPlus, rgbMerged, false );
+	}
+
+	/**
+	 * Wraps the given image; unless {@code view} is set, planes which are
+	 * computed on access get cached or converted up front.
+	 */
+	private ImagePlus createImagePlus(
+		ImgPlus< ? extends RealType< ? > > imgPlus, boolean rgbMerged,
+		boolean view )
 	{
-		ImgPlus< ? extends RealType< ? > > imgPlus = dataset.getImgPlus();
 		if( PlanarImgToVirtualStack.isSupported( imgPlus ) )
 			return PlanarImgToVirtualStack.wrap( imgPlus );
 		if( ArrayImgToVirtualStack.isSupported( imgPlus ) )
@@ -115,11 +231,50 @@ public class ImagePlusCreator extends AbstractContextual
 		if( Util.getTypeFromInterval( imgPlus ) instanceof BitType ) {
 			@SuppressWarnings("unchecked")
 			final ImgPlus<BitType> bitImgPlus = (ImgPlus<BitType>) imgPlus;
-			return ImgToVirtualStack.wrapAndScaleBitType( bitImgPlus );
+			final ImagePlus imp = ImgToVirtualStack.wrapAndScaleBitType( bitImgPlus );
+			return view ? imp : convertPlanes( imp, imgPlus );
 		}
-		if( dataset.isRGBMerged() && ImgPlusViews.canFuseColor( imgPlus ) )
-			return ImgToVirtualStack.wrap( ImgPlusViews.fuseColor( imgPlus ) );
-		return ImgToVirtualStack.wrap( imgPlus );
+		if( rgbMerged && ImgPlusViews.canFuseColor( imgPlus ) ) {
+			final ImagePlus imp = ImgToVirtualStack.wrap( ImgPlusViews.fuseColor( imgPlus ) );
+			return view ? imp : convertPlanes( imp, imgPlus );
+		}
+		final ImagePlus imp = ImgToVirtualStack.wrap( imgPlus );
+		if( view ) return imp;
+		return isNativeType( imgPlus ) ? cachePlanes( imp ) : convertPlanes( imp, imgPlus );
+	}
+
+	private static boolean isNativeType( ImgPlus< ? > imgPlus )
+	{
+		final Object type = Util.getTypeFromInterval( imgPlus );
+		return type instanceof UnsignedByteType ||
+			type instanceof UnsignedShortType || type instanceof FloatType;
+	}
+
+	/**
+	 * Converts all planes of the given image up front, in parallel, if eager
+	 * conversion is enabled and they fit into the memory budget. Otherwise,
+	 * the planes stay converted on access.
+	 */
+	private ImagePlus convertPlanes( ImagePlus imp, ImgPlus< ? > imgPlus )
+	{
+		if ( !eagerConversion || LegacyUtils.sizeInBytes( imp ) > eagerConversionMaxBytes )
+			return cachePlanes( imp );
+		final int c = imp.getNChannels(), z = imp.getNSlices(), t = imp.getNFrames();
+		imp.setStack( new ConvertedStack( imgPlus, imp.getStack() ), c, z, t );
+		return imp;
+	}
+
+	/**
+	 * Puts a {@link CachingVirtualStack} in front of the planes of the given
+	 * image, which are otherwise computed anew on every access.
+	 */
+	private ImagePlus cachePlanes( ImagePlus imp )
+	{
+		if ( CachingVirtualStack.getMaxBytes() <= 0 || imp.getStackSize() < 2 )
+			return imp;
+		final int c = imp.getNChannels(), z = imp.getNSlices(), t = imp.getNFrames();
+		imp.setStack( new CachingVirtualStack( imp.getStack(), threadService ), c, z, t );
+		return imp;
 	}
 
 	// -- private interface --
@@ -45,6 +45,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import net.imagej.Dataset;
 import net.imagej.ImgPlus;
@@ -59,6 +60,14 @@ import net.imglib2.type.numeric.integer.UnsignedShortType;
  */
 public final class ImagePlusCreatorUtils {
 
+	/**
+	 * The image-independent part of the {@link FileInfo} of each source
+	 * {@link Dataset}, so that wrapping a dataset again neither touches the file
+	 * system nor re-reads its metadata.
+	 */
+	private static final Map<Dataset, CachedFileInfo> fileInfos =
+		Collections.synchronizedMap(new WeakHashMap<>());
+
 	private ImagePlusCreatorUtils() {
 		// prevent from instantiation
 	}
@@ -74,26 +83,13 @@ public final class ImagePlusCreatorUtils {
 
 	private static FileInfo getFileInfo( Dataset ds, ImagePlus imp )
 	{
-		final FileInfo fileInfo = new FileInfo();
-		final String source = ds.getSource();
-		final File file =
-			source == null || "".equals(source) ? null : new File(source);
-
-		// We could play games here, if needed.
-		fileInfo.fileFormat = FileInfo.UNKNOWN;
-		fileInfo.fileType = ds.isRGBMerged() ?
-			FileInfo.RGB : ds.getType() instanceof UnsignedShortType ?
-				FileInfo.GRAY16_UNSIGNED : FileInfo.GRAY8;
-		if (file != null && file.exists()) {
-			fileInfo.fileName = file.getName();
-			fileInfo.directory = file.getParent() + File.separator;
-		}
-		else {
-			fileInfo.url = source;
+		final FileInfo fileInfo = (FileInfo) getSourceFileInfo( ds ).clone();
+		// NB: FileInfo.clone() is shallow; do not share the cached labels.
+		if (fileInfo.sliceLabels != null) {
+			fileInfo.sliceLabels = fileInfo.sliceLabels.clone();
 		}
 		fileInfo.width = imp.getWidth();
 		fileInfo.height = imp.getHeight();
-		fileInfo.debugInfo = ds.toString();
 		if (imp.getStack() instanceof VirtualStack ) {
 			fileInfo.virtualStack = (VirtualStack) imp.getStack();
 		}
@@ -108,8 +104,46 @@ public final class ImagePlusCreatorUtils {
 			fileInfo.valueUnit = calibration.getValueUnit();
 			fileInfo.frameInterval = calibration.frameInterval;
 		}
+		return fileInfo;
+	}
 
+	/**
+	 * Gets the part of the {@link FileInfo} which only depends on the given
+	 * {@link Dataset}, reusing the one computed before unless the dataset's
+	 * source or image has changed since.
+	 */
+	private static FileInfo getSourceFileInfo( Dataset ds )
+	{
+		final String source = ds.getSource();
+		final ImgPlus<?> imgPlus = ds.getImgPlus();
+		final CachedFileInfo cached = fileInfos.get(ds);
+		if (cached != null && cached.imgPlus == imgPlus &&
+			cached.rgbMerged == ds.isRGBMerged() &&
+			(source == null ? cached.source == null : source.equals(cached.source)))
+		{
+			return cached.fileInfo;
+		}
+
+		final FileInfo fileInfo = new FileInfo();
+		final File file =
+			source == null || "".equals(source) ? null : new File(source);
+
+		// We could play games here, if needed.
+		fileInfo.fileFormat = FileInfo.UNKNOWN;
+		fileInfo.fileType = ds.isRGBMerged() ?
+			FileInfo.RGB : ds.getType() instanceof UnsignedShortType ?
+				FileInfo.GRAY16_UNSIGNED : FileInfo.GRAY8;
+		if (file != null && file.exists()) {
+			fileInfo.fileName = file.getName();
+			fileInfo.directory = file.getParent() + File.separator;
+		}
+		else {
+			fileInfo.url = source;
+		}
+		fileInfo.debugInfo = ds.toString();
 		fileInfo.sliceLabels = getSliceLabels(ds);
+		fileInfos.put(ds, new CachedFileInfo(source, imgPlus, ds.isRGBMerged(),
+			fileInfo));
 		return fileInfo;
 	}
 
@@ -121,7 +155,13 @@ public final class ImagePlusCreatorUtils {
 					imp.setProperty("Label", fileInfo.sliceLabels[0]);
 				}
 			}
+			else if (imp.getStack() instanceof CachingVirtualStack) {
+				((CachingVirtualStack) imp.getStack()).setSliceLabels(
+					fileInfo.sliceLabels);
+			}
 			else {
+				// NB: Other stacks, including the planar and array image wrappers,
+				// keep their own label storage, so the labels are copied one by one.
 				ImageStack stack = imp.getStack();
 				for (int i = 0; i < fileInfo.sliceLabels.length && i < stack.getSize(); i++) {
 					stack.setSliceLabel(fileInfo.sliceLabels[i], i + 1);
@@ -214,4 +254,20 @@ public final class ImagePlusCreatorUtils {
 		imp.setProperty("Info", info);
 	}
 
+	private static final class CachedFileInfo {
+
+		private final String source;
+		private final ImgPlus<?> imgPlus;
+		private final boolean rgbMerged;
+		private final FileInfo fileInfo;
+
+		private CachedFileInfo(final String source, final ImgPlus<?> imgPlus,
+			final boolean rgbMerged, final FileInfo fileInfo)
+		{
+			this.source = source;
+			this.imgPlus = imgPlus;
+			this.rgbMerged = rgbMerged;
+			this.fileInfo = fileInfo;
+		}
+	}
 }
@@ -64,6 +64,24 @@ public class ImageTranslator extends AbstractContextual
 		return displayCreator.createDisplay(imp);
 	}
 
+	/**
+	 * Creates a {@link Dataset} without an {@link ImageDisplay} from an
+	 * {@link ImagePlus}. Shares planes of data when possible.
+	 *
+	 * @see DisplayCreator#createDataset
+	 */
+	public Dataset createDataset(final ImagePlus imp) {
+		return displayCreator.createDataset(imp);
+	}
+
+	/**
+	 * Creates a {@link ImageDisplay} for a {@link Dataset} created by
+	 * {@link #createDataset(ImagePlus)}.
+	 */
+	public ImageDisplay createDisplay(final ImagePlus imp, final Dataset ds) {
+		return displayCreator.createDisplay(imp, ds);
+	}
+
 	/**
 	 * Creates an {@link ImagePlus} from a {@link ImageDisplay}. Shares planes of
 	 * data when possible.
@@ -81,4 +99,25 @@ public class ImageTranslator extends AbstractContextual
 	{
 		return imagePlusCreator.createLegacyImage(ds, display);
 	}
+
+	/**
+	 * Creates a transient {@link ImagePlus} view of a {@link Dataset}.
+	 *
+	 * @see ImagePlusCreator#createLegacyView
+	 */
+	public ImagePlus createLegacyView(final Dataset ds) {
+		return imagePlusCreator.createLegacyView(ds);
+	}
+
+	/**
+	 * Creates an {@link ImagePlus} from a region of a {@link Dataset}, at full
+	 * resolution.
+	 *
+	 * @see ImagePlusCreator#createRegionImage
+	 */
+	public ImagePlus createRegionImage(final Dataset ds, final long x,
+		final long y, final int width, final int height)
+	{
+		return imagePlusCreator.createRegionImage(ds, x, y, width, height);
+	}
 }
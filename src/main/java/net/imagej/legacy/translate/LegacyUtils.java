@@ -38,7 +38,13 @@ import net.imagej.ImgPlus;
 import net.imagej.axis.Axes;
 import net.imagej.axis.Axis;
 import net.imagej.axis.AxisType;
+import net.imagej.axis.CalibratedAxis;
+import net.imagej.axis.LinearAxis;
+import net.imglib2.img.Img;
+import net.imglib2.img.ImgView;
+import net.imglib2.type.numeric.RealType;
 import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
 
 /**
  * A bag of static methods used throughout the translation layer
@@ -68,6 +74,12 @@ public class LegacyUtils {
 		Interpreter.removeBatchModeImage(imp);
 	}
 
+	/** Returns the number of bytes occupied by the pixels of an ImagePlus. */
+	public static long sizeInBytes(final ImagePlus imp) {
+		return (long) imp.getWidth() * imp.getHeight() * imp.getStackSize() *
+			imp.getBytesPerPixel();
+	}
+
 	/**
 	 * Returns the number of planes needed in legacy ImageJ to represent all
 	 * the axes of a modern ImageJ Dataset. Incompatible modern axes are encoded
@@ -100,33 +112,80 @@ public class LegacyUtils {
 	 * Returns true if the number of planes is greater than Integer.MAX_VALUE.
 	 */
 	public static boolean dimensionsIJ1Compatible(final Dataset ds) {
+		return ds.dimensionIndex(Axes.X) >= 0 && ds.dimensionIndex(Axes.Y) >= 0 &&
+			ij1PlaneSize(ds) <= Integer.MAX_VALUE && //
+			ij1StackSize(ds) <= Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Determines if a Dataset can only be shown in legacy ImageJ as a
+	 * downsampled {@link ResolutionPyramid} level. Returns true if the XY plane
+	 * size is greater than Integer.MAX_VALUE, but the number of planes is not.
+	 */
+	public static boolean needsResolutionPyramid(final Dataset ds) {
+		return ds.dimensionIndex(Axes.X) >= 0 && ds.dimensionIndex(Axes.Y) >= 0 &&
+			ij1PlaneSize(ds) > Integer.MAX_VALUE && //
+			ij1StackSize(ds) <= Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Crops the X and Y axes of an {@link ImgPlus} to the given region, keeping
+	 * all other axes. The calibration is adjusted accordingly.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static ImgPlus<? extends RealType<?>> cropXY(
+		final ImgPlus<? extends RealType<?>> imgPlus, final long x, final long y,
+		final long width, final long height)
+	{
+		return cropXYTyped((ImgPlus) imgPlus, x, y, width, height);
+	}
+
+	private static <T extends RealType<T>> ImgPlus<T> cropXYTyped(
+		final ImgPlus<T> imgPlus, final long x, final long y, final long width,
+		final long height)
+	{
+		final int xIndex = imgPlus.dimensionIndex(Axes.X);
+		final int yIndex = imgPlus.dimensionIndex(Axes.Y);
+		final long[] min = Intervals.minAsLongArray(imgPlus);
+		final long[] max = Intervals.maxAsLongArray(imgPlus);
+		min[xIndex] = x;
+		max[xIndex] = x + width - 1;
+		min[yIndex] = y;
+		max[yIndex] = y + height - 1;
+		final Img<T> region = ImgView.wrap(Views.zeroMin(Views.interval(imgPlus,
+			min, max)), imgPlus.factory());
+		final CalibratedAxis[] axes = new CalibratedAxis[imgPlus.numDimensions()];
+		for (int d = 0; d < axes.length; d++) {
+			axes[d] = imgPlus.axis(d).copy();
+			if (axes[d] instanceof LinearAxis) {
+				final LinearAxis axis = (LinearAxis) axes[d];
+				axis.setOrigin(axis.calibratedValue(min[d]));
+			}
+		}
+		return new ImgPlus<>(region, imgPlus.getName(), axes);
+	}
+
+	/** Returns the number of pixels in an XY plane of a Dataset. */
+	private static long ij1PlaneSize(final Dataset ds) {
 		final int xIndex = ds.dimensionIndex(Axes.X);
 		final int yIndex = ds.dimensionIndex(Axes.Y);
+		final long xCount = xIndex < 0 ? 1 : ds.dimension(xIndex);
+		final long yCount = yIndex < 0 ? 1 : ds.dimension(yIndex);
+		return xCount * yCount;
+	}
+
+	/** Returns the number of planes of the ImageStack representing a Dataset. */
+	private static long ij1StackSize(final Dataset ds) {
 		final int zIndex = ds.dimensionIndex(Axes.Z);
 		final int cIndex = ds.dimensionIndex(Axes.CHANNEL);
 
 		final long[] dims = Intervals.dimensionsAsLongArray(ds);
 
-		final long xCount = xIndex < 0 ? 1 : dims[xIndex];
-		final long yCount = yIndex < 0 ? 1 : dims[yIndex];
 		final long zCount = zIndex < 0 ? 1 : dims[zIndex];
 		final long tCount = ij1PlaneCount(ds.getImgPlus(), Axes.TIME);
 		final long cCount = cIndex < 0 ? 1 : dims[cIndex];
 		final long ij1ChannelCount = ds.isRGBMerged() ? (cCount / 3) : cCount;
-
-		// check width exists
-		if (xIndex < 0) return false;
-
-		// check height exists
-		if (yIndex < 0) return false;
-
-		// check plane size not too large
-		if ((xCount * yCount) > Integer.MAX_VALUE) return false;
-
-		// check number of planes not too large
-		if (ij1ChannelCount * zCount * tCount > Integer.MAX_VALUE) return false;
-
-		return true;
+		return ij1ChannelCount * zCount * tCount;
 	}
 
 	// -- package access static methods --
@@ -0,0 +1,339 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy.translate;
+
+import ij.ImagePlus;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.CalibratedAxis;
+import net.imagej.axis.LinearAxis;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.img.cell.LazyCellImg;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+
+/**
+ * Downsampled versions of an {@link ImgPlus}, for images whose planes are too
+ * large for legacy ImageJ.
+ * <p>
+ * Level {@code k} halves the X and Y dimensions {@code k} times, averaging
+ * each block of pixels; all other dimensions are kept. Levels are derived from
+ * the finest level created so far, and are cached. Their pixels are computed
+ * lazily, tile by tile, when first accessed, and are kept with the level.
+ * Their X and Y axes are rescaled, so that calibrated coordinates agree with
+ * those of the full resolution image.
+ * </p>
+ *
+ * @see ImagePlusCreator#createRegionImage
+ */
+public class ResolutionPyramid {
+
+	/**
+	 * System property specifying the maximum number of pixels per plane of the
+	 * level shown in legacy ImageJ.
+	 */
+	public static final String MAX_PLANE_PIXELS_PROPERTY =
+		"imagej.legacy.pyramid.maxPlanePixels";
+
+	private static final long DEFAULT_MAX_PLANE_PIXELS = 1L << 26;
+
+	/** Width and height of the tiles in which levels are computed. */
+	private static final int TILE_SIZE = 256;
+
+	/** The legacy images which show a pyramid level. */
+	private static final Map<ImagePlus, View> views = Collections
+		.synchronizedMap(new WeakHashMap<>());
+
+	private final ImgPlus<? extends RealType<?>> source;
+
+	private final int xIndex, yIndex;
+
+	private final Map<Integer, ImgPlus<? extends RealType<?>>> levels =
+		new HashMap<>();
+
+	public ResolutionPyramid(final ImgPlus<? extends RealType<?>> source) {
+		this.source = source;
+		xIndex = source.dimensionIndex(Axes.X);
+		yIndex = source.dimensionIndex(Axes.Y);
+		if (xIndex < 0 || yIndex < 0) {
+			throw new IllegalArgumentException("image has no X and Y axes");
+		}
+	}
+
+	/**
+	 * Gets the maximum number of pixels per plane of the level shown in legacy
+	 * ImageJ, as configured by the {@value #MAX_PLANE_PIXELS_PROPERTY} system
+	 * property; by default 2^26, i.e. 8192 x 8192.
+	 */
+	public static long getDefaultMaxPlanePixels() {
+		final String value = System.getProperty(MAX_PLANE_PIXELS_PROPERTY);
+		if (value != null) {
+			try {
+				return Math.min(Integer.MAX_VALUE, Long.parseLong(value));
+			}
+			catch (final NumberFormatException exc) {
+				// NB: Fall back to the default.
+			}
+		}
+		return DEFAULT_MAX_PLANE_PIXELS;
+	}
+
+	/** Gets the full resolution image. */
+	public ImgPlus<? extends RealType<?>> getSource() {
+		return source;
+	}
+
+	/** Gets the factor by which X and Y are downsampled at the given level. */
+	public static long getScale(final int level) {
+		return 1L << level;
+	}
+
+	/**
+	 * Gets the coarsest level needed so that its planes have at most the given
+	 * number of pixels.
+	 */
+	public int getLevelFor(final long maxPlanePixels) {
+		int level = 0;
+		while (width(level) * height(level) > maxPlanePixels && (width(level) > 1 ||
+			height(level) > 1))
+		{
+			level++;
+		}
+		return level;
+	}
+
+	/**
+	 * Gets the given level, creating it if it is not cached yet. Its pixels are
+	 * only computed when accessed.
+	 */
+	public synchronized ImgPlus<? extends RealType<?>> getLevel(
+		final int level)
+	{
+		if (level < 0) throw new IllegalArgumentException("negative level");
+		if (level == 0) return source;
+		ImgPlus<? extends RealType<?>> result = levels.get(level);
+		if (result != null) return result;
+
+		// downsample from the finest level we already have
+		int base = level - 1;
+		while (base > 0 && !levels.containsKey(base))
+			base--;
+		result = downsample(getLevel(base), level, (int) getScale(level - base));
+		levels.put(level, result);
+		return result;
+	}
+
+	/** Discards all cached levels. */
+	public synchronized void clear() {
+		levels.clear();
+	}
+
+	// -- Legacy views --
+
+	/**
+	 * Remembers that the given legacy image shows the given level of this
+	 * pyramid.
+	 */
+	public View register(final ImagePlus imp, final int level) {
+		final View view = new View(this, level);
+		views.put(imp, view);
+		return view;
+	}
+
+	/**
+	 * Gets the pyramid level shown by the given legacy image, or null if it
+	 * shows an image at full resolution.
+	 */
+	public static View getView(final ImagePlus imp) {
+		return imp == null ? null : views.get(imp);
+	}
+
+	/** A legacy image showing a level of a {@link ResolutionPyramid}. */
+	public static class View {
+
+		private final ResolutionPyramid pyramid;
+		private final int level;
+
+		private View(final ResolutionPyramid pyramid, final int level) {
+			this.pyramid = pyramid;
+			this.level = level;
+		}
+
+		public ResolutionPyramid getPyramid() {
+			return pyramid;
+		}
+
+		public int getLevel() {
+			return level;
+		}
+
+		/** Gets the image data shown by the legacy image. */
+		public ImgPlus<? extends RealType<?>> getImgPlus() {
+			return pyramid.getLevel(level);
+		}
+
+		/** Maps a rectangle of the legacy image to full resolution pixels. */
+		public Rectangle toFullResolution(final Rectangle bounds) {
+			final long scale = getScale(level);
+			return new Rectangle((int) Math.min(Integer.MAX_VALUE, bounds.x *
+				scale), (int) Math.min(Integer.MAX_VALUE, bounds.y * scale),
+				(int) Math.min(Integer.MAX_VALUE, bounds.width * scale), (int) Math
+					.min(Integer.MAX_VALUE, bounds.height * scale));
+		}
+	}
+
+	// -- Helper methods --
+
+	private long width(final int level) {
+		return divideRoundingUp(source.dimension(xIndex), getScale(level));
+	}
+
+	private long height(final int level) {
+		return divideRoundingUp(source.dimension(yIndex), getScale(level));
+	}
+
+	private static long divideRoundingUp(final long value, final long divisor) {
+		return (value + divisor - 1) / divisor;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private ImgPlus<? extends RealType<?>> downsample(
+		final ImgPlus<? extends RealType<?>> input, final int level,
+		final int factor)
+	{
+		return downsampleTyped((ImgPlus) input, level, factor);
+	}
+
+	private <T extends RealType<T> & NativeType<T>> ImgPlus<T> downsampleTyped(
+		final ImgPlus<T> input, final int level, final int factor)
+	{
+		final int n = input.numDimensions();
+		final long[] dims = Intervals.dimensionsAsLongArray(input);
+		dims[xIndex] = width(level);
+		dims[yIndex] = height(level);
+		final int[] tileDims = new int[n];
+		Arrays.fill(tileDims, 1);
+		tileDims[xIndex] = (int) Math.min(TILE_SIZE, dims[xIndex]);
+		tileDims[yIndex] = (int) Math.min(TILE_SIZE, dims[yIndex]);
+		final CellGrid grid = new CellGrid(dims, tileDims);
+		final T type = Util.getTypeFromInterval(input).createVariable();
+
+		// NB: Tiles are not computed within computeIfAbsent, since computing a
+		// tile may compute tiles of a finer level.
+		final Map<Long, Cell<?>> tiles = new ConcurrentHashMap<>();
+		final Img<T> output = lazyImg(grid, type, index -> {
+			final Cell<?> tile = tiles.get(index);
+			if (tile != null) return tile;
+			final Cell<?> computed = downsampleTile(input, grid, index, factor, type);
+			final Cell<?> previous = tiles.putIfAbsent(index, computed);
+			return previous != null ? previous : computed;
+		});
+
+		final CalibratedAxis[] axes = new CalibratedAxis[n];
+		for (int d = 0; d < n; d++) {
+			axes[d] = source.axis(d).copy();
+			if ((d == xIndex || d == yIndex) && axes[d] instanceof LinearAxis) {
+				final LinearAxis axis = (LinearAxis) axes[d];
+				axis.setScale(axis.scale() * getScale(level));
+			}
+		}
+		final ImgPlus<T> result = new ImgPlus<>(output, source.getName(), axes);
+		result.setCompositeChannelCount(source.getCompositeChannelCount());
+		return result;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static <T extends NativeType<T>> Img<T> lazyImg(final CellGrid grid,
+		final T type, final LazyCellImg.Get<Cell<?>> get)
+	{
+		return new LazyCellImg(grid, type, (LazyCellImg.Get) get);
+	}
+
+	/** Computes one tile of a level, averaging blocks of the input pixels. */
+	private <T extends RealType<T> & NativeType<T>> Cell<?> downsampleTile(
+		final ImgPlus<T> input, final CellGrid grid, final long index,
+		final int factor, final T type)
+	{
+		final int n = grid.numDimensions();
+		final long[] min = new long[n];
+		final int[] tileDims = new int[n];
+		grid.getCellDimensions(index, min, tileDims);
+		final long inWidth = input.dimension(xIndex);
+		final long inHeight = input.dimension(yIndex);
+
+		final ArrayImg<T, ?> tile = new ArrayImgFactory<>(type).create(Util
+			.int2long(tileDims));
+		// NB: The input may be backed by a reader which is not thread-safe.
+		synchronized (source) {
+			final RandomAccess<T> in = input.randomAccess();
+			final Cursor<T> out = tile.localizingCursor();
+			while (out.hasNext()) {
+				out.fwd();
+				for (int d = 0; d < n; d++) {
+					if (d != xIndex && d != yIndex) {
+						in.setPosition(min[d] + out.getLongPosition(d), d);
+					}
+				}
+				final long ox = min[xIndex] + out.getLongPosition(xIndex);
+				final long oy = min[yIndex] + out.getLongPosition(yIndex);
+				final long x0 = ox * factor, x1 = Math.min(x0 + factor, inWidth);
+				final long y0 = oy * factor, y1 = Math.min(y0 + factor, inHeight);
+				double sum = 0;
+				for (long y = y0; y < y1; y++) {
+					in.setPosition(y, yIndex);
+					for (long x = x0; x < x1; x++) {
+						in.setPosition(x, xIndex);
+						sum += in.get().getRealDouble();
+					}
+				}
+				out.get().setReal(sum / ((y1 - y0) * (x1 - x0)));
+			}
+		}
+		return new Cell<>(tileDims, min, tile.update(null));
+	}
+
+}
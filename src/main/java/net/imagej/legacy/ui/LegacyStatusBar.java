@@ -30,6 +30,9 @@
 package net.imagej.legacy.ui;
 
 import java.awt.Panel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import net.imagej.legacy.LegacyService;
 
@@ -39,6 +42,15 @@ import org.scijava.widget.UIComponent;
 /**
  * Adapter {@link StatusBar} implementation that delegates to legacy ImageJ
  * methods.
+ * <p>
+ * By default, every update is forwarded right away. When a maximum update
+ * rate is set (see {@link #setMaxUpdateRate(double)}, or the
+ * {@value #MAX_UPDATE_RATE_PROPERTY} system property), updates are coalesced
+ * instead: only the latest status and progress are kept, and they are
+ * delivered to legacy ImageJ at most that many times per second, by a single
+ * scheduled task. The latest value is always delivered eventually, and a
+ * completed progress is delivered without delay.
+ * </p>
  * 
  * @author Mark Hiner
  */
@@ -46,13 +58,109 @@ public class LegacyStatusBar extends AbstractLegacyAdapter implements
 	UIComponent<Panel>, StatusBar
 {
 
+	/**
+	 * System property specifying the maximum number of status bar updates per
+	 * second, e.g. {@code 30}; updates are coalesced if it is set.
+	 */
+	public static final String MAX_UPDATE_RATE_PROPERTY =
+		"imagej.legacy.statusBar.maxRate";
+
+	private static ScheduledExecutorService scheduler;
+
+	/** Minimal interval between two updates, or 0 to update immediately. */
+	private volatile long intervalNanos;
+
+	/** Guards the pending values below. */
+	private final Object lock = new Object();
+
+	private String pendingStatus;
+	private boolean statusPending;
+	private int pendingValue, pendingMax;
+	private boolean progressPending;
+	private boolean scheduled;
+	private long lastUpdate;
+
 	public LegacyStatusBar(final LegacyService legacyService) {
 		super(legacyService);
+		final String rate = System.getProperty(MAX_UPDATE_RATE_PROPERTY);
+		if (rate != null) {
+			try {
+				setMaxUpdateRate(Double.parseDouble(rate));
+			}
+			catch (final NumberFormatException exc) {
+				// NB: Ignore invalid rates; update immediately.
+			}
+		}
+	}
+
+	/**
+	 * Sets the maximum number of updates per second delivered to legacy ImageJ.
+	 * 
+	 * @param rate the maximum rate in Hz, or 0 to deliver every update
+	 *          immediately
+	 */
+	public void setMaxUpdateRate(final double rate) {
+		intervalNanos = rate > 0 ? (long) (1e9 / rate) : 0;
+		if (intervalNanos == 0) {
+			synchronized (lock) {
+				if (statusPending || progressPending) schedule(true);
+			}
+		}
+	}
+
+	/** Gets the maximum number of updates per second, or 0 if unlimited. */
+	public double getMaxUpdateRate() {
+		final long interval = intervalNanos;
+		return interval > 0 ? 1e9 / interval : 0;
 	}
 
 	@Override
 	public void setStatus(final String message) {
 		if (dummy()) return;
+		if (intervalNanos > 0) {
+			// NB: The update is delivered on another thread, so check here whether
+			// it originated in the LegacyStatusBar; see showStatus(String).
+			if (getLegacyService().isProcessingEvents()) return;
+			synchronized (lock) {
+				pendingStatus = message;
+				statusPending = true;
+				schedule(false);
+			}
+			return;
+		}
+		showStatus(message);
+	}
+
+	@Override
+	public void setProgress(final int val, final int max) {
+		if (dummy()) return;
+		if (intervalNanos > 0) {
+			if (getLegacyService().isProcessingEvents()) return;
+			synchronized (lock) {
+				pendingValue = val;
+				pendingMax = max;
+				progressPending = true;
+				// NB: Deliver completion at once, rather than leave the bar showing.
+				schedule(val >= max);
+			}
+			return;
+		}
+		showProgress(val, max);
+	}
+
+	@Override
+	public Panel getComponent() {
+		return dummy() ? null : helper().getStatusBar();
+	}
+
+	@Override
+	public Class<Panel> getComponentType() {
+		return Panel.class;
+	}
+
+	// -- Helper methods --
+
+	private void showStatus(final String message) {
 		boolean processing = getLegacyService().setProcessingEvents(true);
 		// if we are already in the middle of processing events, then we must have
 		// gotten here from an event that originated in the LegacyStatusBar. So,
@@ -60,15 +168,13 @@ public class LegacyStatusBar extends AbstractLegacyAdapter implements
 		// finally block earlier in this stack trace.
 		if (processing) return;
 		try {
-			helper().setStatus(message);
+			deliverStatus(message);
 		} finally {
 			getLegacyService().setProcessingEvents(processing);
 		}
 	}
 
-	@Override
-	public void setProgress(final int val, final int max) {
-		if (dummy()) return;
+	private void showProgress(final int val, final int max) {
 		boolean processing = getLegacyService().setProcessingEvents(true);
 		// if we are already in the middle of processing events, then we must have
 		// gotten here from an event that originated in the LegacyStatusBar. So,
@@ -76,20 +182,67 @@ public class LegacyStatusBar extends AbstractLegacyAdapter implements
 		// finally block earlier in this stack trace.
 		if (processing) return;
 		try {
-			helper().setProgress(val, max + 1);
+			deliverProgress(val, max);
 		} finally {
 			getLegacyService().setProcessingEvents(processing);
 		}
 	}
 
-	@Override
-	public Panel getComponent() {
-		return dummy() ? null : helper().getStatusBar();
+	/** Passes the status message on to legacy ImageJ. */
+	void deliverStatus(final String message) {
+		helper().setStatus(message);
 	}
 
-	@Override
-	public Class<Panel> getComponentType() {
-		return Panel.class;
+	/** Passes the progress on to legacy ImageJ. */
+	void deliverProgress(final int val, final int max) {
+		helper().setProgress(val, max + 1);
+	}
+
+	/**
+	 * Schedules delivery of the pending values, either as soon as the maximum
+	 * update rate allows, or right away; must hold {@link #lock}.
+	 */
+	private void schedule(final boolean now) {
+		if (scheduled && !now) return;
+		scheduled = true;
+		final long delay = now ? 0 : lastUpdate + intervalNanos - System.nanoTime();
+		scheduler().schedule(this::flush, Math.max(0, delay),
+			TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Delivers the pending values, if any. This happens on the single updater
+	 * thread only, which keeps the updates in order.
+	 */
+	private void flush() {
+		final String status;
+		final boolean hasStatus, hasProgress;
+		final int val, max;
+		synchronized (lock) {
+			status = pendingStatus;
+			hasStatus = statusPending;
+			val = pendingValue;
+			max = pendingMax;
+			hasProgress = progressPending;
+			pendingStatus = null;
+			statusPending = progressPending = false;
+			scheduled = false;
+			lastUpdate = System.nanoTime();
+		}
+		if (dummy()) return;
+		if (hasStatus) showStatus(status);
+		if (hasProgress) showProgress(val, max);
+	}
+
+	private static synchronized ScheduledExecutorService scheduler() {
+		if (scheduler == null) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				final Thread thread = new Thread(r, "ImageJ-Status-Updater");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return scheduler;
 	}
 
 }
@@ -128,6 +128,7 @@ public class LegacyUI extends AbstractUserInterface implements SwingUI {
 	@Override
 	public void show() {
 		if (ij1Helper() == null) return;
+		legacyService.ensureCommandsInitialized();
 
 		ij1Helper.setVisible(true);
 		if (ij1Helper.isVisible()) {
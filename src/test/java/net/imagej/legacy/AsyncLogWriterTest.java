@@ -0,0 +1,110 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link AsyncLogWriter}.
+ */
+public class AsyncLogWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testFlushOnClose() throws IOException {
+		final File file = new File(folder.getRoot(), "log.txt");
+		// NB: a tiny queue forces the loggers to wait for the writer
+		final AsyncLogWriter writer = new AsyncLogWriter(file, 8, 0, 1);
+		for (int i = 0; i < 10000; i++) {
+			writer.log("line " + i);
+		}
+		writer.close();
+
+		final List<String> lines = read(file);
+		assertEquals(10001, lines.size());
+		assertTrue(lines.get(0).startsWith("Started new log on "));
+		for (int i = 0; i < 10000; i++) {
+			assertEquals("line " + i, lines.get(i + 1));
+		}
+		assertFalse(new File(file.getPath() + ".1").exists());
+
+		// messages after closing are dropped
+		writer.log("too late");
+		assertEquals(10001, read(file).size());
+	}
+
+	@Test
+	public void testRotation() throws IOException {
+		final File file = new File(folder.getRoot(), "log.txt");
+		final AsyncLogWriter writer = new AsyncLogWriter(file, 1024, 1000, 2);
+		for (int i = 0; i < 1000; i++) {
+			writer.log("message " + i + "\n");
+		}
+		writer.close();
+
+		final File backup1 = new File(file.getPath() + ".1");
+		final File backup2 = new File(file.getPath() + ".2");
+		assertTrue(backup1.exists());
+		assertTrue(backup2.exists());
+		assertFalse(new File(file.getPath() + ".3").exists());
+		assertTrue(backup1.length() <= 1000 + "message 999\n".length());
+
+		// the newest messages are in the current file, preceded by the backups
+		final List<String> lines = new ArrayList<>();
+		lines.addAll(read(backup2));
+		lines.addAll(read(backup1));
+		lines.addAll(read(file));
+		assertEquals("message 999", lines.get(lines.size() - 1));
+		final int offset = 1000 - lines.size();
+		for (int i = 0; i < lines.size(); i++) {
+			assertEquals("message " + (offset + i), lines.get(i));
+		}
+	}
+
+	private static List<String> read(final File file) throws IOException {
+		return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import net.imagej.legacy.HookMetrics.Histogram;
+import net.imagej.legacy.HookMetrics.Hook;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link HookMetrics}.
+ */
+public class HookMetricsTest {
+
+	@Test
+	public void testDisabled() {
+		final HookMetrics metrics = new HookMetrics();
+		assertFalse(metrics.isEnabled());
+		final long start = metrics.start();
+		assertEquals(0, start);
+		metrics.record(Hook.RUN_PLUGIN, start);
+		assertEquals(0, metrics.getHistogram(Hook.RUN_PLUGIN).getCount());
+	}
+
+	@Test
+	public void testEnabled() {
+		final HookMetrics metrics = new HookMetrics();
+		metrics.setEnabled(true);
+		metrics.record(Hook.KEY_PRESSED, metrics.start());
+		metrics.record(Hook.KEY_PRESSED, metrics.start());
+		assertEquals(2, metrics.getHistogram(Hook.KEY_PRESSED).getCount());
+		assertEquals(0, metrics.getHistogram(Hook.OPEN).getCount());
+
+		final String report = metrics.report();
+		assertTrue(report.contains("interceptKeyPressed"));
+		assertFalse(report.contains("interceptOpen"));
+
+		metrics.reset();
+		assertEquals(0, metrics.getHistogram(Hook.KEY_PRESSED).getCount());
+	}
+
+	@Test
+	public void testHistogram() {
+		final Histogram histogram = new Histogram();
+		for (long i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000000, histogram.getMaxNanos());
+		assertEquals(500500.0, histogram.getMeanNanos(), 0);
+		assertPercentile(500000, histogram.getValueAtPercentile(50));
+		assertPercentile(990000, histogram.getValueAtPercentile(99));
+		assertEquals(1000000, histogram.getValueAtPercentile(100));
+
+		// small values are recorded exactly
+		histogram.reset();
+		histogram.record(3);
+		assertEquals(3, histogram.getValueAtPercentile(50));
+	}
+
+	private static void assertPercentile(final long expected, final long actual) {
+		assertTrue("" + actual, actual >= expected);
+		assertTrue("" + actual, actual <= expected * 1.07);
+	}
+
+}
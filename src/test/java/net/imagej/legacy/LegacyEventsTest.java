@@ -0,0 +1,130 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imagej.legacy.LegacyEvents.Event;
+import net.imagej.legacy.LegacyEvents.Type;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link LegacyEvents}.
+ * <p>
+ * The Flight Recorder API is accessed via reflection, since it is not part of
+ * every supported Java version.
+ * </p>
+ */
+public class LegacyEventsTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testNoRecording() {
+		assertNull(LegacyEvents.begin(Type.MACRO));
+		// committing a null event must be harmless
+		LegacyEvents.commit(null, "nothing");
+	}
+
+	@Test
+	public void testRecording() throws Exception {
+		assumeTrue(LegacyEvents.isAvailable());
+
+		final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+		final Object recording = recordingClass.newInstance();
+		recordingClass.getMethod("enable", String.class).invoke(recording,
+			Type.COMMAND.getEventName());
+		recordingClass.getMethod("enable", String.class).invoke(recording,
+			Type.REGISTER_DISPLAY.getEventName());
+		recordingClass.getMethod("start").invoke(recording);
+
+		final Event command = LegacyEvents.begin(Type.COMMAND);
+		LegacyEvents.commit(command, "ij.plugin.filter.Filters(\"invert\")");
+		final Event register = LegacyEvents.begin(Type.REGISTER_DISPLAY);
+		LegacyEvents.commit(register, "blobs.gif", new int[] { 256, 254, 1, 1, 1 },
+			65024);
+		// not enabled, hence not recorded
+		assertNull(LegacyEvents.begin(Type.MACRO));
+
+		recordingClass.getMethod("stop").invoke(recording);
+		final Path path = new File(folder.getRoot(), "legacy.jfr").toPath();
+		recordingClass.getMethod("dump", Path.class).invoke(recording, path);
+		recordingClass.getMethod("close").invoke(recording);
+
+		final Class<?> fileClass =
+			Class.forName("jdk.jfr.consumer.RecordingFile");
+		final List<?> events = (List<?>) fileClass.getMethod("readAllEvents",
+			Path.class).invoke(null, path);
+		final List<Object> legacyEvents = new ArrayList<>();
+		for (final Object event : events) {
+			if (eventName(event).startsWith("imagej.legacy.")) {
+				legacyEvents.add(event);
+			}
+		}
+		assertEquals(2, legacyEvents.size());
+
+		final Object first = legacyEvents.get(0);
+		assertEquals("imagej.legacy.Command", eventName(first));
+		assertEquals("ij.plugin.filter.Filters(\"invert\")", get(first, "name"));
+
+		final Object second = legacyEvents.get(1);
+		assertEquals("imagej.legacy.RegisterDisplay", eventName(second));
+		assertEquals("blobs.gif", get(second, "name"));
+		assertEquals("256x254x1x1x1", get(second, "dimensions"));
+		assertEquals(65024L, get(second, "bytes"));
+	}
+
+	private static String eventName(final Object event) throws Exception {
+		final Object type = event.getClass().getMethod("getEventType").invoke(
+			event);
+		return (String) type.getClass().getMethod("getName").invoke(type);
+	}
+
+	private static Object get(final Object event, final String field)
+		throws Exception
+	{
+		final Method getValue = event.getClass().getMethod("getValue",
+			String.class);
+		return getValue.invoke(event, field);
+	}
+
+}
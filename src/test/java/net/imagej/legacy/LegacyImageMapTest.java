@@ -29,19 +29,31 @@
 
 package net.imagej.legacy;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import ij.ImagePlus;
 import ij.gui.NewImage;
 
+import java.lang.ref.WeakReference;
+import java.util.Random;
+
 import net.imagej.Dataset;
 import net.imagej.DatasetService;
 import net.imagej.ImgPlus;
 import net.imagej.axis.Axes;
 import net.imagej.axis.AxisType;
 import net.imagej.axis.DefaultLinearAxis;
+import net.imagej.display.ImageDisplay;
+import net.imagej.display.ImageDisplayService;
+import net.imagej.legacy.translate.ImagePlusCreator;
 import net.imagej.patcher.LegacyInjector;
 import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
 import net.imglib2.type.numeric.RealType;
 
 import org.junit.Test;
@@ -293,4 +305,139 @@ public class LegacyImageMapTest {
 //		Utils.testSame(ds1,imp);
 		assertTrue(true);
 	}
+
+	@Test
+	public void testReclaimInactive() {
+		synchronized (LegacyService.class) {
+			// NB: Eagerly converted planes are held by the ImagePlus on its own.
+			System.setProperty(ImagePlusCreator.EAGER_PROPERTY, "true");
+			final Context context = new Context(LegacyService.class,
+				ImageDisplayService.class);
+			try {
+				final LegacyImageMap map =
+					context.getService(LegacyService.class).getImageMap();
+				final Random r = new Random(1234);
+				final ImageDisplay[] displays = new ImageDisplay[3];
+				final ImagePlus[] imps = new ImagePlus[displays.length];
+				for (int i = 0; i < displays.length; i++) {
+					final Dataset ds = Helper.makeDataset(context, Helper
+						.makeRandomByteArray(r, 11, 15), "ds" + i);
+					imps[i] = map.registerDataset(ds);
+					assertFalse(imps[i].getStack().isVirtual());
+					displays[i] = map.lookupDisplay(imps[i]);
+					assertNotNull(displays[i]);
+				}
+
+				long bytes = 0;
+				for (final ImageDisplay display : displays) {
+					assertTrue(map.getBytesHeld(display) > 0);
+					bytes += map.getBytesHeld(display);
+				}
+				assertEquals(bytes, map.getBytesHeld());
+
+				final ImageDisplay active = context.getService(
+					ImageDisplayService.class).getActiveImageDisplay();
+				final long reclaimed = map.reclaimInactive();
+				assertTrue(reclaimed > 0);
+				assertEquals(bytes - reclaimed, map.getBytesHeld());
+				for (final ImageDisplay display : displays) {
+					if (display != active) assertEquals(0, map.getBytesHeld(display));
+				}
+
+				for (int i = 0; i < displays.length; i++) {
+					// reclaimable mappings are still known and recreated on demand
+					assertTrue(map.getImageDisplays().contains(displays[i]));
+					final ImagePlus imp = map.lookupImagePlus(displays[i]);
+					assertNotNull(imp);
+					assertSame(displays[i], map.lookupDisplay(imp));
+					assertTrue(map.getBytesHeld(displays[i]) > 0);
+				}
+				assertEquals(bytes, map.getBytesHeld());
+			}
+			finally {
+				context.dispose();
+				System.clearProperty(ImagePlusCreator.EAGER_PROPERTY);
+			}
+		}
+	}
+
+	@Test
+	public void testReclaimKeepsChanges() {
+		synchronized (LegacyService.class) {
+			// NB: Eagerly converted planes are a copy held by the ImagePlus.
+			System.setProperty(ImagePlusCreator.EAGER_PROPERTY, "true");
+			final Context context = new Context(LegacyService.class,
+				ImageDisplayService.class);
+			try {
+				final LegacyImageMap map =
+					context.getService(LegacyService.class).getImageMap();
+				final ImageDisplayService imageDisplayService =
+					context.getService(ImageDisplayService.class);
+				final Random r = new Random(1234);
+				final ImageDisplay[] displays = new ImageDisplay[2];
+				final ImagePlus[] imps = new ImagePlus[displays.length];
+				for (int i = 0; i < displays.length; i++) {
+					final Dataset ds = Helper.makeDataset(context, Helper
+						.makeRandomByteArray(r, 11, 15), "ds" + i);
+					imps[i] = map.registerDataset(ds);
+					displays[i] = map.lookupDisplay(imps[i]);
+				}
+				final int changed =
+					displays[0] == imageDisplayService.getActiveImageDisplay() ? 1 : 0;
+				imps[changed].getStack().getProcessor(1).setf(0, 0, 42);
+				imps[changed].changes = true;
+
+				assertTrue(map.reclaimInactive() > 0);
+				assertEquals(0, map.getBytesHeld(displays[changed]));
+				final Dataset ds =
+					imageDisplayService.getActiveDataset(displays[changed]);
+				final RandomAccess<? extends RealType<?>> ra =
+					ds.getImgPlus().randomAccess();
+				ra.setPosition(new long[] { 0, 0 });
+				assertEquals(42, ra.get().getRealDouble(), 0);
+			}
+			finally {
+				context.dispose();
+				System.clearProperty(ImagePlusCreator.EAGER_PROPERTY);
+			}
+		}
+	}
+
+	@Test
+	public void testBatchDatasetCollected() throws InterruptedException {
+		synchronized (LegacyService.class) {
+			final Context context = new Context(LegacyService.class,
+				ImageDisplayService.class);
+			try {
+				final LegacyImageMap map =
+					context.getService(LegacyService.class).getImageMap();
+				map.setBatchProfile(true);
+				ImagePlus imp = NewImage.createByteImage("batch", 11, 15, 3,
+					NewImage.FILL_RAMP);
+				Dataset ds = map.registerLegacyDataset(imp);
+				assertFalse(ds.getProperties().containsKey(LegacyImageMap.IMP_KEY));
+				assertSame(ds, map.lookupDataset(imp));
+				assertSame(imp, map.lookupImagePlus(ds));
+				assertNull(map.lookupDisplay(imp));
+
+				// a copy inheriting the properties is not linked to the Dataset
+				final ImagePlus copy = imp.duplicate();
+				copy.setProperty("ij2-batch-dataset", ds);
+				assertNull(map.lookupDataset(copy));
+
+				// the dropped ImagePlus is collected together with its Dataset
+				final WeakReference<ImagePlus> ref = new WeakReference<>(imp);
+				imp = null;
+				ds = null;
+				for (int i = 0; i < 50 && ref.get() != null; i++) {
+					System.gc();
+					Thread.sleep(20);
+				}
+				assertNull(ref.get());
+			}
+			finally {
+				context.dispose();
+			}
+		}
+	}
 }
@@ -33,13 +33,19 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
 
+import java.io.File;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
 
 import net.imagej.patcher.LegacyInjector;
 
 import org.junit.Test;
 import org.scijava.Context;
+import org.scijava.options.OptionsService;
 import org.scijava.script.ScriptModule;
 import org.scijava.script.ScriptService;
 
@@ -139,4 +145,37 @@ public class LegacyOpenerTest {
 		}
 	}
 
+	/**
+	 * Verifies that paths declined by the legacy openers during a batch open are
+	 * reported as unhandled, so that ImageJ 1.x gets to open them (or to report
+	 * why it cannot).
+	 */
+	@Test
+	public void testOpenAllDeclined() throws Exception {
+		final URL url = getClass().getResource("/icons/imagej-256.png");
+		assertNotNull(url);
+		assertTrue("file".equals(url.getProtocol()));
+		final String path = url.getPath();
+		final String missing = new File(new File(path).getParentFile(),
+			"no-such-image.png").getPath();
+
+		final Context context = new Context();
+		try {
+			final LegacyService legacyService =
+				context.getService(LegacyService.class);
+			assumeTrue(legacyService.isActive());
+			// NB: With ImageJ2-style I/O disabled, the default opener declines
+			// everything for which there is no eager I/O plugin.
+			assumeFalse(context.getService(OptionsService.class).getOptions(
+				ImageJ2Options.class).isSciJavaIO());
+
+			final List<Object> results = //
+				legacyService.openAll(Arrays.asList(missing, missing));
+			assertEquals(Arrays.asList(null, null), results);
+		}
+		finally {
+			context.dispose();
+		}
+	}
+
 }
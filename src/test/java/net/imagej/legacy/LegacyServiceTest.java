@@ -29,18 +29,29 @@
 
 package net.imagej.legacy;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeTrue;
 
 import ij.IJ;
 
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import net.imagej.legacy.command.LegacyCommandInfo;
 import net.imagej.patcher.LegacyInjector;
 
 import org.junit.After;
 import org.junit.Test;
 import org.scijava.Context;
+import org.scijava.module.ModuleInfo;
+import org.scijava.module.ModuleService;
+import org.scijava.script.ScriptService;
 
 /**
  * Unit tests for {@link LegacyService}.
@@ -92,5 +103,88 @@ public class LegacyServiceTest {
 		assertTrue(legacyService != null);
 	}
 
+	@Test
+	public void testInitializeCommands() throws Exception {
+		context = new Context(LegacyService.class);
+		final LegacyService legacyService =
+			context.getService(LegacyService.class);
+		assumeTrue(legacyService.isActive());
+
+		final ScriptService scriptService =
+			context.getService(ScriptService.class);
+		assertSame(ij.gui.Overlay.class, scriptService.lookupClass("IJ1Overlay"));
+		assertSame(ij.ImagePlus.class, scriptService.lookupClass("ImagePlus"));
+
+		final ModuleService moduleService =
+			context.getService(ModuleService.class);
+		for (final ModuleInfo info : moduleService.getModules()) {
+			assertFalse(info.getIdentifier(), info.is("no-legacy"));
+		}
+	}
+
+	@Test
+	public void testLazyInitialization() {
+		System.setProperty("imagej.legacy.lazyInit", "true");
+		try {
+			context = new Context(LegacyService.class);
+		}
+		finally {
+			System.clearProperty("imagej.legacy.lazyInit");
+		}
+		final LegacyService legacyService =
+			context.getService(LegacyService.class);
+		assumeTrue(legacyService.isActive());
+		final ModuleService moduleService =
+			context.getService(ModuleService.class);
+		final StartupTimeline timeline = legacyService.getStartupTimeline();
+		assertFalse(hasLegacyCommands(moduleService));
+		assertNull(timeline.getPhase("findCommands"));
+
+		legacyService.ensureCommandsInitialized();
+		assertTrue(hasLegacyCommands(moduleService));
+		assertNotNull(timeline.getPhase("lazyInitialization"));
+	}
+
+	@Test
+	public void testRefreshMenus() {
+		context = new Context(LegacyService.class);
+		final LegacyService legacyService =
+			context.getService(LegacyService.class);
+		assumeTrue(legacyService.isActive());
+		final IJ1Helper ij1Helper = legacyService.getIJ1Helper();
+		final Hashtable<String, String> commands = ij1Helper.getCommands();
+		assumeTrue(commands != null);
+		final Map<String, ModuleInfo> modules =
+			legacyService.getScriptsAndNonLegacyCommands();
+		assumeTrue(!modules.isEmpty());
+		final Entry<String, ModuleInfo> entry = modules.entrySet().iterator()
+			.next();
+		final String name = entry.getValue().getMenuPath().getLeaf().getName();
+		assertNotNull(commands.get(name));
+
+		// ImageJ 1.x rebuilds its command table, dropping the modern commands
+		commands.remove(name);
+		new DefaultLegacyHooks(legacyService).runAfterRefreshMenus();
+		assertTrue(ij1Helper.isMenuInitialized());
+		assertNotNull(commands.get(name));
+
+		// the wrapped ImageJ 1.x commands must not override themselves
+		final ModuleService moduleService =
+			context.getService(ModuleService.class);
+		for (final ModuleInfo info : moduleService.getModules()) {
+			if (!(info instanceof LegacyCommandInfo)) continue;
+			if (info.getMenuPath().getLeaf() == null) continue;
+			final String label = info.getMenuPath().getLeaf().getName();
+			assertFalse(info.getIdentifier().equals(commands.get(label)));
+		}
+		assertEquals(modules.keySet(), legacyService
+			.getScriptsAndNonLegacyCommands().keySet());
+	}
+
+	private boolean hasLegacyCommands(final ModuleService moduleService) {
+		return moduleService.getModules().stream().anyMatch(
+			info -> info instanceof LegacyCommandInfo);
+	}
+
 }
 
@@ -0,0 +1,131 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.legacy;
+
+import static org.junit.Assert.assertEquals;
+
+import ij.Prefs;
+
+import net.imagej.options.OptionsAppearance;
+import net.imagej.patcher.LegacyInjector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.event.EventService;
+import org.scijava.options.OptionsService;
+import org.scijava.options.event.OptionsEvent;
+
+/**
+ * Tests {@link OptionsSynchronizer}.
+ */
+public class OptionsSynchronizerTest {
+
+	static {
+		LegacyInjector.preinit();
+	}
+
+	private Context context;
+	private OptionsService optionsService;
+	private OptionsSynchronizer synchronizer;
+	private boolean blackCanvas;
+	private boolean blackCanvasOption;
+
+	@Before
+	public void setUp() {
+		context = new Context(OptionsService.class);
+		optionsService = context.service(OptionsService.class);
+		synchronizer = new OptionsSynchronizer(optionsService);
+		blackCanvas = Prefs.blackCanvas;
+		blackCanvasOption = optionsService.getOptions(OptionsAppearance.class)
+			.isBlackCanvas();
+	}
+
+	@After
+	public void tearDown() {
+		Prefs.blackCanvas = blackCanvas;
+		synchronizer.dispose();
+		// NB: dispose() saved the changed options; restore the original ones.
+		final OptionsAppearance options =
+			optionsService.getOptions(OptionsAppearance.class);
+		options.setBlackCanvas(blackCanvasOption);
+		options.save();
+		context.dispose();
+	}
+
+	@Test
+	public void testMarkChanged() {
+		final OptionsAppearance options =
+			optionsService.getOptions(OptionsAppearance.class);
+		synchronizer.updateLegacyImageJSettingsFromModernImageJ();
+		assertEquals(options.isBlackCanvas(), Prefs.blackCanvas);
+
+		// NB: The setter does not publish an OptionsEvent.
+		options.setBlackCanvas(!options.isBlackCanvas());
+		synchronizer.updateLegacyImageJSettingsFromModernImageJ();
+		assertEquals(!options.isBlackCanvas(), Prefs.blackCanvas);
+
+		synchronizer.markChanged(OptionsAppearance.class);
+		synchronizer.updateLegacyImageJSettingsFromModernImageJ();
+		assertEquals(options.isBlackCanvas(), Prefs.blackCanvas);
+	}
+
+	@Test
+	public void testOptionsEvent() {
+		final OptionsAppearance options =
+			optionsService.getOptions(OptionsAppearance.class);
+		synchronizer.updateLegacyImageJSettingsFromModernImageJ();
+
+		options.setBlackCanvas(!options.isBlackCanvas());
+		context.service(EventService.class).publish(new OptionsEvent(options));
+		synchronizer.updateLegacyImageJSettingsFromModernImageJ();
+		assertEquals(options.isBlackCanvas(), Prefs.blackCanvas);
+	}
+
+	@Test
+	public void testLegacyChange() {
+		final OptionsAppearance options =
+			optionsService.getOptions(OptionsAppearance.class);
+		synchronizer.updateLegacyImageJSettingsFromModernImageJ();
+		synchronizer.updateModernImageJSettingsFromLegacyImageJ();
+
+		Prefs.blackCanvas = !Prefs.blackCanvas;
+		synchronizer.updateModernImageJSettingsFromLegacyImageJ();
+		assertEquals(Prefs.blackCanvas, options.isBlackCanvas());
+
+		// the legacy change is not propagated back as a modern change
+		Prefs.blackCanvas = !Prefs.blackCanvas;
+		synchronizer.updateLegacyImageJSettingsFromModernImageJ();
+		assertEquals(!options.isBlackCanvas(), Prefs.blackCanvas);
+	}
+
+}
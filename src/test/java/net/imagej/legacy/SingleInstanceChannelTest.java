@@ -0,0 +1,152 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.scijava.log.LogService;
+import org.scijava.log.StderrLogService;
+
+/**
+ * Tests {@link SingleInstanceChannel}.
+ */
+public class SingleInstanceChannelTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+	private final SingleInstanceQueue.Handler handler =
+		new SingleInstanceQueue.Handler()
+		{
+
+			@Override
+			public void execute(final String command) {
+				received.add(command);
+			}
+
+			@Override
+			public void openAll(final List<String> paths) {
+				for (final String path : paths) {
+					received.add("open " + path);
+				}
+			}
+		};
+
+	@Test
+	public void testSend() throws Exception {
+		final LogService log = new StderrLogService();
+		try (final SingleInstanceQueue queue = new SingleInstanceQueue(handler,
+			log); final SingleInstanceChannel channel = new SingleInstanceChannel(
+				queue, log))
+		{
+			final List<String> commands = Arrays.asList("user.dir /tmp",
+				"open /tmp/bäume.tif", "run Invert");
+			assertTrue(SingleInstanceChannel.send(channel.getPort(), channel
+				.getToken(), commands, 0));
+			for (final String command : commands) {
+				assertEquals(command, received.poll(10, TimeUnit.SECONDS));
+			}
+		}
+	}
+
+	@Test
+	public void testWait() throws Exception {
+		final LogService log = new StderrLogService();
+		try (final SingleInstanceQueue queue = new SingleInstanceQueue(handler,
+			log); final SingleInstanceChannel channel = new SingleInstanceChannel(
+				queue, log))
+		{
+			assertTrue(SingleInstanceChannel.send(channel.getPort(), channel
+				.getToken(), Arrays.asList("open a.tif", "open b.tif"),
+				SingleInstanceChannel.FLAG_WAIT));
+			// NB: the batch was executed before send() returned
+			assertEquals(2, received.size());
+		}
+	}
+
+	@Test
+	public void testInvalidToken() throws Exception {
+		final LogService log = new StderrLogService();
+		try (final SingleInstanceQueue queue = new SingleInstanceQueue(handler,
+			log); final SingleInstanceChannel channel = new SingleInstanceChannel(
+				queue, log))
+		{
+			assertFalse(SingleInstanceChannel.send(channel.getPort(), "guess",
+				Arrays.asList("run Quit"), 0));
+			assertTrue(received.isEmpty());
+		}
+	}
+
+	@Test
+	public void testPrivateFile() throws IOException {
+		final File file = new File(folder.getRoot(), "ImageJ.channel");
+		final byte[] content = "1234 secret\n".getBytes(StandardCharsets.US_ASCII);
+		SingleInstance.writePrivateFile(file, content);
+		assertEquals("1234 secret\n", new String(Files.readAllBytes(file
+			.toPath()), StandardCharsets.US_ASCII));
+		assertTrue(SingleInstance.isOwnedByCurrentUser(file));
+		if (FileSystems.getDefault().supportedFileAttributeViews().contains(
+			"posix"))
+		{
+			assertEquals("rw-------", PosixFilePermissions.toString(Files
+				.getPosixFilePermissions(file.toPath())));
+		}
+
+		// an existing file is never reused
+		try {
+			SingleInstance.writePrivateFile(file, content);
+			fail("Existing file was overwritten");
+		}
+		catch (final IOException exc) {
+			// expected
+		}
+	}
+
+}
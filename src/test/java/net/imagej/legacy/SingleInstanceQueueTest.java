@@ -0,0 +1,158 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import ij.WindowManager;
+
+import java.awt.GraphicsEnvironment;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.imagej.patcher.LegacyInjector;
+
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.log.StderrLogService;
+
+/**
+ * Tests {@link SingleInstanceQueue}.
+ */
+public class SingleInstanceQueueTest {
+
+	static {
+		LegacyInjector.preinit();
+	}
+
+	@Test
+	public void testCoalescing() throws Exception {
+		final List<String> log = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final SingleInstanceQueue.Handler handler =
+			new SingleInstanceQueue.Handler()
+			{
+
+				@Override
+				public void execute(final String command) {
+					if (command.equals("run Block")) {
+						blocked.countDown();
+						try {
+							release.await();
+						}
+						catch (final InterruptedException exc) {
+							throw new RuntimeException(exc);
+						}
+					}
+					log.add(command);
+				}
+
+				@Override
+				public void openAll(final List<String> paths) {
+					log.add("openAll " + paths);
+				}
+			};
+
+		try (final SingleInstanceQueue queue = new SingleInstanceQueue(handler,
+			new StderrLogService()))
+		{
+			// keep the worker busy, so that the next batches queue up
+			queue.submit(Arrays.asList("run Block"));
+			assertEquals(true, blocked.await(10, TimeUnit.SECONDS));
+
+			queue.submit(Arrays.asList("user.dir /tmp", "open a.tif", "open b.tif"));
+			queue.submit(Arrays.asList("open a.tif", "open c.tif"));
+			final CompletableFuture<Void> last = queue.submit(Arrays.asList(
+				"run Invert", "open a.tif"));
+			release.countDown();
+			last.get(10, TimeUnit.SECONDS);
+		}
+
+		assertEquals(Arrays.asList("run Block", "user.dir /tmp",
+			"openAll [a.tif, b.tif, c.tif]", "run Invert", "openAll [a.tif]"), log);
+	}
+
+	/**
+	 * Verifies that an image opened via the queue is opened by ImageJ 1.x when
+	 * the legacy openers decline it, as they do with the default options.
+	 */
+	@Test
+	public void testOpenWithDefaultOptions() throws Exception {
+		assumeFalse(GraphicsEnvironment.isHeadless());
+		final URL url = getClass().getResource("/icons/imagej-256.png");
+		assertNotNull(url);
+
+		final Context context = new Context();
+		try {
+			final LegacyService legacyService =
+				context.getService(LegacyService.class);
+			assumeTrue(legacyService.isActive());
+			final IJ1Helper helper = legacyService.getIJ1Helper();
+			WindowManager.closeAllWindows();
+
+			final SingleInstanceQueue.Handler handler =
+				new SingleInstanceQueue.Handler()
+				{
+
+					@Override
+					public void execute(final String command) {
+						throw new UnsupportedOperationException(command);
+					}
+
+					@Override
+					public void openAll(final List<String> paths) {
+						helper.openAllAndAddToRecent(paths);
+					}
+				};
+			try (final SingleInstanceQueue queue = new SingleInstanceQueue(handler,
+				new StderrLogService()))
+			{
+				queue.submit(Arrays.asList("open " + url.getPath())).get(10,
+					TimeUnit.SECONDS);
+			}
+			assertEquals(1, WindowManager.getImageCount());
+		}
+		finally {
+			WindowManager.closeAllWindows();
+			context.dispose();
+		}
+	}
+
+}
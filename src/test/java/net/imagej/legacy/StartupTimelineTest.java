@@ -0,0 +1,76 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link StartupTimeline}.
+ */
+public class StartupTimelineTest {
+
+	@Test
+	public void testPhases() {
+		final StartupTimeline timeline = new StartupTimeline(null);
+		final StartupTimeline.Phase outer = timeline.begin("outer");
+		final StartupTimeline.Phase inner = timeline.begin("inner");
+		assertNull(timeline.getPhase("inner"));
+		inner.end();
+		outer.end();
+		outer.end(); // NB: ending twice must not record the phase twice
+
+		final List<StartupTimeline.Phase> phases = timeline.getPhases();
+		assertEquals(2, phases.size());
+		assertEquals("inner", phases.get(0).getName());
+		assertEquals("outer", phases.get(1).getName());
+		assertTrue(outer.getWallNanos() >= inner.getWallNanos());
+		assertTrue(inner.getStartNanos() >= outer.getStartNanos());
+		assertNotNull(timeline.getPhase("outer"));
+	}
+
+	@Test
+	public void testJSON() {
+		final StartupTimeline timeline = new StartupTimeline(null);
+		timeline.begin("say \"hi\"").end();
+		final String json = timeline.toJSON();
+		assertTrue(json.startsWith("{\"phases\":["));
+		assertTrue(json.contains("\"name\":\"say \\\"hi\\\"\""));
+		assertTrue(json.contains("\"wallNanos\":"));
+		assertTrue(json.contains("\"allocatedBytes\":"));
+	}
+
+}
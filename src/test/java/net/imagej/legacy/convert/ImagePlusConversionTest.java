@@ -30,6 +30,10 @@
 package net.imagej.legacy.convert;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import ij.IJ;
 import ij.ImagePlus;
@@ -40,6 +44,8 @@ import net.imagej.DatasetService;
 import net.imagej.axis.Axes;
 import net.imagej.axis.AxisType;
 import net.imagej.display.ImageDisplay;
+import net.imagej.legacy.LegacyImageMap;
+import net.imagej.legacy.LegacyService;
 import net.imagej.patcher.LegacyInjector;
 import net.imglib2.RandomAccess;
 import net.imglib2.type.numeric.RealType;
@@ -89,6 +95,18 @@ public class ImagePlusConversionTest {
 		assertImagesEqual(imp, d);
 	}
 
+	/** Tests {@link LegacyImageMap#createView(Dataset)}. */
+	@Test
+	public void testCreateView() {
+		final Dataset d = createDataset();
+		final LegacyImageMap imageMap =
+			context.service(LegacyService.class).getImageMap();
+		final ImagePlus imp = imageMap.createView(d);
+		assertImagesEqual(imp, d);
+		assertNull(imageMap.lookupDisplay(imp));
+		assertTrue(imageMap.getImageDisplays().isEmpty());
+	}
+
 	/** Tests {@link ImageDisplayToImagePlusConverter}. */
 	@Test
 	public void testImageDisplayToImagePlus() {
@@ -105,6 +123,31 @@ public class ImagePlusConversionTest {
 		assertImagesEqual(imp, d);
 	}
 
+	/**
+	 * Tests {@link ImagePlusToDatasetConverter} in the batch profile, where no
+	 * display is created until one is requested.
+	 */
+	@Test
+	public void testImagePlusToDatasetBatchProfile() {
+		final LegacyImageMap imageMap =
+			context.service(LegacyService.class).getImageMap();
+		// NB: The batch profile is opt-in, even when running headless.
+		assertFalse(imageMap.isBatchProfile());
+		imageMap.setBatchProfile(true);
+		final ImagePlus imp = (ImagePlus) createImagePlus();
+		final Dataset d = convertService.convert(imp, Dataset.class);
+		assertImagesEqual(imp, d);
+		assertNull(imageMap.lookupDisplay(imp));
+		assertSame(d, imageMap.lookupDataset(imp));
+
+		// the bare Dataset converts back to its ImagePlus
+		assertSame(imp, convertService.convert(d, ImagePlus.class));
+		assertNull(imageMap.lookupDisplay(imp));
+
+		final ImageDisplay display = imageMap.registerLegacyImage(imp);
+		assertSame(d, display.get(0).getData());
+	}
+
 	/** Tests {@link ImagePlusToImageDisplayConverter}. */
 	@Test
 	public void testImagePlusToImageDisplay() {
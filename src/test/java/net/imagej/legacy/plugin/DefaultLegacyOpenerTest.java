@@ -0,0 +1,195 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.legacy.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import io.scif.config.SCIFIOConfig;
+import io.scif.img.ImgMode;
+import io.scif.services.DatasetIOService;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import net.imagej.Dataset;
+import net.imagej.DatasetService;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imagej.legacy.ImageJ2Options;
+import net.imagej.legacy.LegacyService;
+import net.imagej.patcher.LegacyInjector;
+import net.imglib2.Cursor;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.scijava.Context;
+import org.scijava.options.OptionsService;
+
+/**
+ * Tests the per-type caching of I/O plugin resolutions and the background
+ * loading of lazily opened images in {@link DefaultLegacyOpener}.
+ */
+public class DefaultLegacyOpenerTest {
+
+	static {
+		LegacyInjector.preinit();
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Context context;
+
+	@Before
+	public void setUp() {
+		context = new Context();
+		assumeTrue(context.service(LegacyService.class).isActive());
+		// NB: With ImageJ2-style I/O disabled, only eager plugins are consulted.
+		assumeFalse(context.service(OptionsService.class).getOptions(
+			ImageJ2Options.class).isSciJavaIO());
+	}
+
+	@After
+	public void tearDown() {
+		if (context != null) context.dispose();
+	}
+
+	@Test
+	public void testCache() throws IOException {
+		final File file = copyResource("/icons/imagej-256.png", "a.png");
+		final String path = file.getPath();
+		final DefaultLegacyOpener opener = new DefaultLegacyOpener();
+
+		// first open: miss
+		opener.open(path, 0, false);
+		assertEquals(0, opener.getCacheHits());
+		assertEquals(1, opener.getCacheMisses());
+
+		// same, unchanged file: hit
+		opener.open(path, 0, false);
+		assertEquals(1, opener.getCacheHits());
+		assertEquals(1, opener.getCacheMisses());
+
+		// other file of the same type: hit
+		final File other = copyResource("/icons/imagej-256.png", "b.png");
+		opener.open(other.getPath(), 0, false);
+		assertEquals(2, opener.getCacheHits());
+		assertEquals(1, opener.getCacheMisses());
+
+		// modified file of the same type: hit
+		assumeTrue(file.setLastModified(file.lastModified() - 60000));
+		opener.open(path, 0, false);
+		assertEquals(3, opener.getCacheHits());
+		assertEquals(1, opener.getCacheMisses());
+
+		// same extension, different leading bytes: miss
+		final File text = new File(folder.getRoot(), "c.png");
+		Files.write(text.toPath(), "not an image".getBytes("UTF-8"));
+		opener.open(text.getPath(), 0, false);
+		assertEquals(3, opener.getCacheHits());
+		assertEquals(2, opener.getCacheMisses());
+
+		// invalidated cache: miss
+		opener.invalidateCaches();
+		opener.open(path, 0, false);
+		assertEquals(3, opener.getCacheHits());
+		assertEquals(3, opener.getCacheMisses());
+		opener.open(path, 0, false);
+		assertEquals(4, opener.getCacheHits());
+		assertEquals(3, opener.getCacheMisses());
+	}
+
+	@Test
+	public void testPrefetch() throws IOException {
+		final DatasetService datasetService = context.service(DatasetService.class);
+		final Dataset dataset = datasetService.create(new UnsignedByteType(),
+			new long[] { 64, 48, 5 }, "planes", new AxisType[] { Axes.X, Axes.Y,
+				Axes.Z });
+		long value = 0;
+		for (final RealType<?> t : dataset) {
+			t.setReal(value++ % 251);
+		}
+		final String path = new File(folder.getRoot(), "planes.tif").getPath();
+		final DatasetIOService datasetIOService = //
+			context.service(DatasetIOService.class);
+		datasetIOService.save(dataset, path);
+
+		final Dataset cells = datasetIOService.open(path, //
+			new SCIFIOConfig().imgOpenerSetImgModes(ImgMode.CELL));
+		assertTrue(cells.getImgPlus().getImg() instanceof AbstractCellImg);
+		final long cellCount = Intervals.numElements( //
+			((AbstractCellImg<?, ?, ?, ?>) cells.getImgPlus().getImg()).getCells());
+
+		// a budget of one byte still reads the first cell
+		assertEquals(1, DefaultLegacyOpener.prefetch(cells, 1, null));
+		// the progress callback can stop reading
+		assertEquals(1, DefaultLegacyOpener.prefetch(cells, Long.MAX_VALUE,
+			loaded -> false));
+		// an ample budget reads every cell
+		assertEquals(cellCount, DefaultLegacyOpener.prefetch(cells,
+			Long.MAX_VALUE, null));
+
+		// the lazily loaded pixels are the saved ones
+		final Cursor<RealType<?>> expected = Views.flatIterable(dataset).cursor();
+		final Cursor<RealType<?>> actual = Views.flatIterable(cells).cursor();
+		while (expected.hasNext()) {
+			assertEquals(expected.next().getRealDouble(), actual.next()
+				.getRealDouble(), 0);
+		}
+		assertFalse(actual.hasNext());
+	}
+
+	private File copyResource(final String resource, final String name)
+		throws IOException
+	{
+		final File file = new File(folder.getRoot(), name);
+		try (final InputStream in = getClass().getResourceAsStream(resource)) {
+			Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		return file;
+	}
+
+}
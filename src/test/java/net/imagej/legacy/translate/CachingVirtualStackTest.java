@@ -0,0 +1,220 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy.translate;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.thread.ThreadService;
+
+/**
+ * Tests {@link CachingVirtualStack}.
+ */
+public class CachingVirtualStackTest {
+
+	private Context context;
+	private ThreadService threadService;
+
+	@Before
+	public void setUp() {
+		context = new Context(ThreadService.class);
+		threadService = context.service(ThreadService.class);
+		CachingVirtualStack.setMaxBytes(1 << 20);
+	}
+
+	@After
+	public void tearDown() {
+		// NB: Discard the planes of this test from the shared cache.
+		CachingVirtualStack.setMaxBytes(0);
+		CachingVirtualStack.setMaxBytes(CachingVirtualStack.getDefaultMaxBytes());
+		context.dispose();
+	}
+
+	@Test
+	public void testHitsAndCopies() {
+		final ImageStack source = createStack(4);
+		final CachingVirtualStack stack =
+			new CachingVirtualStack(source, threadService);
+		final byte[] first = (byte[]) stack.getPixels(1);
+		final byte[] second = (byte[]) stack.getPixels(1);
+		assertArrayEquals(first, second);
+		assertNotSame(first, second);
+		assertEquals(1, stack.getMissCount());
+		assertEquals(1, stack.getHitCount());
+
+		// modifying a returned plane must not affect the cache
+		first[0] = 42;
+		assertEquals(1, ((byte[]) stack.getPixels(1))[0]);
+	}
+
+	@Test
+	public void testPrefetch() {
+		final CachingVirtualStack stack =
+			new CachingVirtualStack(createStack(10), threadService);
+		stack.getProcessor(1);
+		assertEquals(1, stack.getMissCount());
+		// navigating forward prefetches the following planes
+		stack.getProcessor(2);
+		final ImageProcessor ip = stack.getProcessor(3);
+		assertEquals(3, ip.get(0, 0));
+		assertEquals(1, stack.getMissCount());
+		assertEquals(2, stack.getHitCount());
+	}
+
+	@Test
+	public void testEviction() {
+		final ImageStack source = createStack(5);
+		// room for two planes of 4 bytes each
+		CachingVirtualStack.setMaxBytes(8);
+		final CachingVirtualStack stack = new CachingVirtualStack(source, null);
+		stack.getPixels(1);
+		stack.getPixels(3);
+		stack.getPixels(5);
+		assertTrue(stack.getEvictionCount() > 0);
+		assertTrue(stack.getCachedBytes() <= 8);
+	}
+
+	@Test
+	public void testSharedBudget() {
+		// room for two planes of 4 bytes each, across all stacks
+		CachingVirtualStack.setMaxBytes(8);
+		final CachingVirtualStack first =
+			new CachingVirtualStack(createStack(2), null);
+		final CachingVirtualStack second =
+			new CachingVirtualStack(createStack(2), null);
+		first.getPixels(1);
+		first.getPixels(2);
+		assertEquals(8, first.getCachedBytes());
+		second.getPixels(1);
+		assertEquals(4, first.getCachedBytes());
+		assertEquals(4, second.getCachedBytes());
+		assertEquals(8, CachingVirtualStack.getTotalCachedBytes());
+		assertEquals(1, second.getEvictionCount());
+
+		second.clearCache();
+		assertEquals(4, CachingVirtualStack.getTotalCachedBytes());
+	}
+
+	@Test
+	public void testWriteThrough() {
+		final ImageStack source = createStack(2);
+		final CachingVirtualStack stack =
+			new CachingVirtualStack(source, threadService);
+		stack.getPixels(2);
+		stack.setPixels(new byte[] { 7, 7, 7, 7 }, 2);
+		assertEquals(7, ((byte[]) source.getPixels(2))[0]);
+		assertEquals(7, ((byte[]) stack.getPixels(2))[0]);
+	}
+
+	@Test
+	public void testSliceLabels() {
+		final ImageStack source = createStack(3);
+		final CachingVirtualStack stack =
+			new CachingVirtualStack(source, threadService);
+		stack.setSliceLabels(new String[] { "a", "b" });
+		assertEquals("a", stack.getSliceLabel(1));
+		assertEquals("b", stack.getSliceLabel(2));
+		assertNull(stack.getSliceLabel(3));
+		assertNull(source.getSliceLabel(1));
+
+		// labels set explicitly take precedence
+		stack.setSliceLabel("c", 1);
+		assertEquals("c", stack.getSliceLabel(1));
+	}
+
+	@Test
+	public void testClearCacheWhilePrefetching() throws InterruptedException {
+		final Thread testThread = Thread.currentThread();
+		final CountDownLatch read = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final ImageStack source = new ImageStack(2, 2) {
+
+			@Override
+			public Object getPixels(final int n) {
+				final Object pixels = super.getPixels(n);
+				// NB: Hold back the prefetched plane until it went stale.
+				if (Thread.currentThread() != testThread && n == 2) {
+					read.countDown();
+					try {
+						release.await();
+					}
+					catch (final InterruptedException exc) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return pixels;
+			}
+		};
+		for (int i = 1; i <= 3; i++) {
+			source.addSlice(new ByteProcessor(2, 2, new byte[] { (byte) i, 0, 0,
+				0 }, null));
+		}
+		final CachingVirtualStack stack =
+			new CachingVirtualStack(source, threadService);
+		try {
+			// prefetches plane 2, reading it before it changes
+			stack.getPixels(1);
+			read.await();
+			source.setPixels(new byte[] { 9, 9, 9, 9 }, 2);
+			stack.clearCache();
+		}
+		finally {
+			release.countDown();
+		}
+		// NB: Reads of the source are serialized, so this waits for the
+		// prefetch, whose stale plane must not be cached.
+		assertEquals(9, ((byte[]) stack.getPixels(2))[0]);
+		assertEquals(9, ((byte[]) stack.getPixels(2))[0]);
+	}
+
+	private static ImageStack createStack(final int size) {
+		final ImageStack stack = new ImageStack(2, 2);
+		for (int i = 1; i <= size; i++) {
+			final byte[] pixels = new byte[4];
+			pixels[0] = (byte) i;
+			stack.addSlice(new ByteProcessor(2, 2, pixels, null));
+		}
+		return stack;
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy.translate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.image.IndexColorModel;
+
+import net.imagej.display.ColorTables;
+import net.imglib2.display.ColorTable;
+import net.imglib2.display.ColorTable8;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link ColorTableCache}.
+ */
+public class ColorTableCacheTest {
+
+	@Test
+	public void testStandardTables() {
+		final byte[] ramp = new byte[256];
+		for (int i = 0; i < ramp.length; i++)
+			ramp[i] = (byte) i;
+		final IndexColorModel grays = new IndexColorModel(8, 256, ramp, ramp, ramp);
+		assertSame(ColorTables.GRAYS, ColorTableCache.intern(grays));
+	}
+
+	@Test
+	public void testSharedTables() {
+		final byte[] reds = new byte[256];
+		final byte[] greens = new byte[256];
+		final byte[] blues = new byte[256];
+		for (int i = 0; i < 256; i++) {
+			reds[i] = (byte) (255 - i);
+			greens[i] = (byte) (i / 2);
+			blues[i] = (byte) i;
+		}
+		final ColorTable8 first = ColorTableCache.intern(new IndexColorModel(8,
+			256, reds, greens, blues));
+		final ColorTable8 second = ColorTableCache.intern(new IndexColorModel(8,
+			256, reds.clone(), greens.clone(), blues.clone()));
+		assertSame(first, second);
+		assertEquals(255, first.get(ColorTable.RED, 0));
+		assertEquals(64, first.get(ColorTable.GREEN, 128));
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy.translate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import ij.CompositeImage;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.ColorProcessor;
+import ij.process.ImageProcessor;
+
+import net.imagej.display.ImageDisplay;
+import net.imagej.display.ImageDisplayService;
+import net.imagej.patcher.LegacyInjector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+
+/**
+ * Tests {@link ColorTableHarmonizer}.
+ */
+public class ColorTableHarmonizerTest {
+
+	static {
+		LegacyInjector.preinit();
+	}
+
+	private Context context;
+
+	private ColorTableHarmonizer harmonizer;
+
+	@Before
+	public void setUp() {
+		context = new Context();
+		harmonizer = new ColorTableHarmonizer(context.service(
+			ImageDisplayService.class));
+	}
+
+	@After
+	public void tearDown() {
+		context.dispose();
+	}
+
+	/**
+	 * Harmonizing an unchanged composite image must not cycle through its
+	 * channels, since changing the channel reloads the pixels.
+	 */
+	@Test
+	public void testUnchangedCompositeImage() {
+		final ImageStack stack = new ImageStack(4, 3);
+		for (int c = 0; c < 3; c++)
+			stack.addSlice(new ByteProcessor(4, 3));
+		final ImagePlus imp = new ImagePlus("composite", stack);
+		imp.setDimensions(3, 1, 1);
+		final CountingCompositeImage ci = new CountingCompositeImage(imp);
+		final ImageDisplay display = new DisplayCreator(context).createDisplay(ci);
+		harmonizer.updateLegacyImage(display, ci);
+		ci.setC(2);
+
+		ci.channelChanges = 0;
+		harmonizer.updateLegacyImage(display, ci);
+		harmonizer.updateLegacyImage(display, ci);
+		assertEquals(0, ci.channelChanges);
+		assertEquals(2, ci.getC());
+	}
+
+	/**
+	 * Harmonizing an unchanged color image must not reset its display range,
+	 * which rewrites the pixels and juggles the snapshot.
+	 */
+	@Test
+	public void testUnchangedColorImage() {
+		final CountingImagePlus imp = new CountingImagePlus(new ColorProcessor(4,
+			3));
+		final ImageDisplay display = new DisplayCreator(context).createDisplay(
+			imp);
+		harmonizer.updateLegacyImage(display, imp);
+		final ImageProcessor ip = imp.getProcessor();
+		ip.snapshot();
+		final Object snapshot = ip.getSnapshotPixels();
+
+		imp.rangeChanges = 0;
+		harmonizer.updateLegacyImage(display, imp);
+		harmonizer.updateLegacyImage(display, imp);
+		assertEquals(0, imp.rangeChanges);
+		assertSame(snapshot, ip.getSnapshotPixels());
+	}
+
+	private static class CountingCompositeImage extends CompositeImage {
+
+		private int channelChanges;
+
+		private CountingCompositeImage(final ImagePlus imp) {
+			super(imp, CompositeImage.COMPOSITE);
+		}
+
+		@Override
+		public void setC(final int channel) {
+			channelChanges++;
+			super.setC(channel);
+		}
+	}
+
+	private static class CountingImagePlus extends ImagePlus {
+
+		private int rangeChanges;
+
+		private CountingImagePlus(final ImageProcessor ip) {
+			super("color", ip);
+		}
+
+		@Override
+		public void setDisplayRange(final double min, final double max) {
+			rangeChanges++;
+			super.setDisplayRange(min, max);
+		}
+	}
+
+}
@@ -30,6 +30,7 @@
 package net.imagej.legacy.translate;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import ij.ImagePlus;
 import ij.ImageStack;
@@ -49,6 +50,7 @@ import net.imagej.Dataset;
 import net.imagej.axis.Axes;
 import net.imagej.display.ImageDisplay;
 import net.imagej.patcher.LegacyInjector;
+import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.test.ImgLib2Assert;
@@ -91,6 +93,14 @@ public class DisplayCreatorTest
 			return ( Dataset ) display.getActiveView().getData();
 		}
 
+		private static Dataset toMaterializedDataset( Context context, ImagePlus image )
+		{
+			DisplayCreator creator = new DisplayCreator( context );
+			creator.setMaterializeColorChannels( true );
+			ImageDisplay display = creator.createDisplay( image );
+			return ( Dataset ) display.getActiveView().getData();
+		}
+
 		private static ImagePlus createImagePlus( int c, int z, int t, ImageProcessor... imageProcessors )
 		{
 			ImageStack imageStack = new ImageStack( imageProcessors[0].getWidth(), imageProcessors[0].getHeight() );
@@ -167,6 +177,30 @@ public class DisplayCreatorTest
 		SubClass.testConversion( context, expected, image );
 	}
 
+	@Test
+	public void testMaterializedColorStackWrapping()
+	{
+		int width = 2, height = 1, channels = 2;
+		ImagePlus image = SubClass.createColorImagePlus( width, height, channels, 1, 1, new int[][] { { 0x010203, 0x040506 }, { 0x070809, 0x0a0b0c } } );
+		RandomAccessibleInterval< UnsignedByteType > expected = ArrayImgs.unsignedBytes( new byte[]{1,4,2,5,3,6,7,10,8,11,9,12}, width, height, 3, channels );
+		Dataset dataset = SubClass.toMaterializedDataset( context, image );
+		assertTrue( ColorChannelPlanes.isMaterialized( dataset.getImgPlus() ) );
+		ImgLib2Assert.assertImageEqualsRealType( expected, dataset, 0 );
+
+		// modify the green channel of the second plane, and write it back
+		RandomAccess< ? extends RealType< ? > > ra = dataset.getImgPlus().randomAccess();
+		ra.setPosition( new long[] { 0, 0, 1, 1 } );
+		ra.get().setReal( 0x42 );
+		ColorChannelPlanes.synchronize( dataset.getImgPlus(), image );
+		assertEquals( 0x074209, ( ( int[] ) image.getStack().getPixels( 2 ) )[ 0 ] & 0xffffff );
+
+		// modify the second plane in ImageJ 1.x; the channels are split anew
+		( ( int[] ) image.getStack().getPixels( 2 ) )[ 1 ] = 0x0d0e0f;
+		ColorChannelPlanes.synchronize( dataset.getImgPlus(), image );
+		ra.setPosition( new long[] { 1, 0, 1, 1 } );
+		assertEquals( 0x0e, ra.get().getRealDouble(), 0 );
+	}
+
 	@Test
 	public void testColorStackWrapping2()
 	{
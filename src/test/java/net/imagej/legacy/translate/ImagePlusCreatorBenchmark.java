@@ -29,6 +29,9 @@
 
 package net.imagej.legacy.translate;
 
+import ij.ImagePlus;
+import ij.ImageStack;
+
 import net.imagej.Dataset;
 import net.imagej.DatasetService;
 import net.imagej.ImgPlus;
@@ -38,11 +41,13 @@ import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.img.cell.CellImgFactory;
 import net.imglib2.img.planar.PlanarImgs;
+import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -62,6 +67,7 @@ public class ImagePlusCreatorBenchmark
 	private final Context context = new Context();
 	private final DatasetService datasetService = context.service( DatasetService.class );
 	private final ImagePlusCreator creator = new ImagePlusCreator( context );
+	private final ImagePlusCreator eagerCreator = createEagerCreator();
 
 	private final long[] smallDims = { 10, 10, 10 };
 	private final long[] deepDims = { 10, 10, 1000000 };
@@ -75,6 +81,7 @@ public class ImagePlusCreatorBenchmark
 	private final Dataset deepPlanarImg = makeDataset( PlanarImgs.unsignedBytes( deepDims ) );
 	private final Dataset small2dArrayImg = makeDataset( ArrayImgs.unsignedBytes( 10, 10 ) );
 	private final Dataset big2dArrayImg = makeDataset( ArrayImgs.unsignedBytes( 10000, 10000 ) );
+	private final Dataset doubleImg = makeDataset( ArrayImgs.doubles( 512, 512, 100 ) );
 
 	@Benchmark
 	public void testSmallCellImg() {
@@ -116,10 +123,36 @@ public class ImagePlusCreatorBenchmark
 		creator.createLegacyImage( big2dArrayImg );
 	}
 
-	private Dataset makeDataset( Img< UnsignedByteType > deepPlanarImg )
+	@Benchmark
+	public void testLazyDoubleImg( Blackhole blackhole ) {
+		readAllPlanesTwice( creator.createLegacyImage( doubleImg ), blackhole );
+	}
+
+	@Benchmark
+	public void testEagerDoubleImg( Blackhole blackhole ) {
+		readAllPlanesTwice( eagerCreator.createLegacyImage( doubleImg ), blackhole );
+	}
+
+	/** Reads the image the way a filter processing every plane twice does. */
+	private void readAllPlanesTwice( ImagePlus imp, Blackhole blackhole )
+	{
+		final ImageStack stack = imp.getStack();
+		for ( int pass = 0; pass < 2; pass++ )
+			for ( int i = 1; i <= stack.getSize(); i++ )
+				blackhole.consume( stack.getProcessor( i ) );
+	}
+
+	private ImagePlusCreator createEagerCreator()
+	{
+		final ImagePlusCreator result = new ImagePlusCreator( context );
+		result.setEagerConversion( true );
+		return result;
+	}
+
+	private < T extends RealType< T > > Dataset makeDataset( Img< T > deepPlanarImg )
 	{
 		AxisType[] axes = { Axes.X, Axes.Y, Axes.Z };
-		ImgPlus< UnsignedByteType > imgPlus = new ImgPlus<>( deepPlanarImg, "title", axes );
+		ImgPlus< T > imgPlus = new ImgPlus<>( deepPlanarImg, "title", axes );
 		return datasetService.create( imgPlus );
 	}
 
@@ -30,6 +30,7 @@ package net.imagej.legacy.translate;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -68,6 +69,7 @@ import net.imglib2.type.numeric.integer.LongType;
 import net.imglib2.type.numeric.integer.ShortType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
 import net.imglib2.type.numeric.real.FloatType;
 
 import org.junit.After;
@@ -279,6 +281,38 @@ public class ImagePlusCreatorTest
 		assertTrue( imagePlus instanceof CompositeImage );
 	}
 
+	@Test
+	public void testEagerConversion() {
+		double[] values = { 1, 2, 3, 4, 5, 6, 7, 8 };
+		Img< DoubleType > image = ArrayImgs.doubles( values, 2, 2, 2 );
+		AxisType[] axes = { Axes.X, Axes.Y, Axes.Z };
+		Dataset ds = datasetService.create( new ImgPlus<>( image, "image", axes ) );
+		ImagePlusCreator ipc = new ImagePlusCreator( context );
+		ipc.setEagerConversion( true );
+		ImagePlus imagePlus = ipc.createLegacyImage( ds );
+		assertFalse( imagePlus.getStack().isVirtual() );
+		assertArrayEquals( new float[] { 5, 6, 7, 8 }, ( float[] ) imagePlus.getStack().getPixels( 2 ), 0f );
+	}
+
+	@Test
+	public void testEagerConversionRefresh() {
+		double[] values = { 1, 2, 3, 4, 5, 6, 7, 8 };
+		Img< DoubleType > image = ArrayImgs.doubles( values, 2, 2, 2 );
+		AxisType[] axes = { Axes.X, Axes.Y, Axes.Z };
+		Dataset ds = datasetService.create( new ImgPlus<>( image, "image", axes ) );
+		ImagePlusCreator ipc = new ImagePlusCreator( context );
+		ipc.setEagerConversion( true );
+		ImagePlus imagePlus = ipc.createLegacyImage( ds );
+		float[] pixels = ( float[] ) imagePlus.getStack().getPixels( 2 );
+		values[ 4 ] = 9;
+		assertEquals( 5, pixels[ 0 ], 0f );
+		assertTrue( ( ( ConvertedStack ) imagePlus.getStack() ).refresh( 1 ) );
+		// only the current plane is converted anew right away
+		assertEquals( 5, pixels[ 0 ], 0f );
+		assertSame( pixels, imagePlus.getStack().getPixels( 2 ) );
+		assertEquals( 9, pixels[ 0 ], 0f );
+	}
+
 	private < T extends NativeType<T> & RealType<T> > void testArrayImage( Supplier< T > typeConstructor, Class< ? > processorClass )
 	{
 		testImgPlusCreator( typeConstructor, processorClass, new ArrayImgFactory<>() );
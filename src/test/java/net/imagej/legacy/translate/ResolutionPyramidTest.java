@@ -0,0 +1,124 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.legacy.translate;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imagej.axis.DefaultLinearAxis;
+import net.imagej.axis.LinearAxis;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link ResolutionPyramid}.
+ */
+public class ResolutionPyramidTest {
+
+	@Test
+	public void testLevels() {
+		final float[] pixels = new float[4 * 4 * 2];
+		for (int i = 0; i < pixels.length; i++)
+			pixels[i] = i;
+		final ImgPlus<FloatType> imgPlus = new ImgPlus<>(ArrayImgs.floats(pixels,
+			4, 4, 2), "image", new AxisType[] { Axes.X, Axes.Y, Axes.Z });
+		final ResolutionPyramid pyramid = new ResolutionPyramid(imgPlus);
+		assertSame(imgPlus, pyramid.getLevel(0));
+
+		final ImgPlus<? extends RealType<?>> level1 = pyramid.getLevel(1);
+		assertArrayEquals(new long[] { 2, 2, 2 }, Intervals.dimensionsAsLongArray(
+			level1));
+		// average of 0, 1, 4, 5
+		assertEquals(2.5, level1.firstElement().getRealDouble(), 0);
+		assertSame(level1, pyramid.getLevel(1));
+
+		final ImgPlus<? extends RealType<?>> level2 = pyramid.getLevel(2);
+		assertArrayEquals(new long[] { 1, 1, 2 }, Intervals.dimensionsAsLongArray(
+			level2));
+		assertEquals(7.5, level2.firstElement().getRealDouble(), 0);
+	}
+
+	@Test
+	public void testLevelFor() {
+		final ImgPlus<FloatType> imgPlus = new ImgPlus<>(ArrayImgs.floats(100, 60),
+			"image", new AxisType[] { Axes.X, Axes.Y });
+		final ResolutionPyramid pyramid = new ResolutionPyramid(imgPlus);
+		assertEquals(0, pyramid.getLevelFor(6000));
+		assertEquals(1, pyramid.getLevelFor(1500));
+		assertEquals(2, pyramid.getLevelFor(1000));
+	}
+
+	@Test
+	public void testCalibration() {
+		final ImgPlus<FloatType> imgPlus = new ImgPlus<>(ArrayImgs.floats(8, 8),
+			"image", new DefaultLinearAxis(Axes.X, "um", 0.5),
+			new DefaultLinearAxis(Axes.Y, "um", 0.25));
+		final ResolutionPyramid pyramid = new ResolutionPyramid(imgPlus);
+		final ImgPlus<? extends RealType<?>> level2 = pyramid.getLevel(2);
+		assertEquals(2.0, ((LinearAxis) level2.axis(0)).scale(), 0);
+		assertEquals(1.0, ((LinearAxis) level2.axis(1)).scale(), 0);
+		assertEquals("um", level2.axis(0).unit());
+	}
+
+	@Test
+	public void testLazyTiles() {
+		// NB: 600 x 600 pixels yield a level 1 of 2 x 2 tiles.
+		final float[] pixels = new float[600 * 600];
+		final ImgPlus<FloatType> imgPlus = new ImgPlus<>(ArrayImgs.floats(pixels,
+			600, 600), "image", new AxisType[] { Axes.X, Axes.Y });
+		final ResolutionPyramid pyramid = new ResolutionPyramid(imgPlus);
+		final ImgPlus<? extends RealType<?>> level1 = pyramid.getLevel(1);
+
+		// no pixels are computed before they are accessed
+		pixels[0] = 4;
+		final RandomAccess<? extends RealType<?>> access = level1.randomAccess();
+		assertEquals(1.0, access.get().getRealDouble(), 0);
+
+		// computed tiles are kept
+		pixels[1] = 4;
+		assertEquals(1.0, access.get().getRealDouble(), 0);
+		assertEquals(1.0, level1.randomAccess().get().getRealDouble(), 0);
+
+		// other tiles are computed when first accessed
+		pixels[599 * 600 + 599] = 8;
+		access.setPosition(new long[] { 299, 299 });
+		assertEquals(2.0, access.get().getRealDouble(), 0);
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * ImageJ2 software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2009 - 2024 ImageJ2 developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.legacy.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import net.imagej.legacy.LegacyService;
+import net.imagej.patcher.LegacyInjector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+
+/**
+ * Tests the coalescing of updates by {@link LegacyStatusBar}.
+ */
+public class LegacyStatusBarTest {
+
+	static {
+		LegacyInjector.preinit();
+	}
+
+	private Context context;
+	private LegacyService legacyService;
+
+	/** The delivered updates, with the names of the delivering threads. */
+	private final BlockingQueue<String> delivered = new LinkedBlockingQueue<>();
+
+	@Before
+	public void setUp() {
+		context = new Context(LegacyService.class);
+		legacyService = context.service(LegacyService.class);
+		assumeTrue(legacyService.isActive());
+	}
+
+	@After
+	public void tearDown() {
+		context.dispose();
+	}
+
+	@Test
+	public void testEcho() throws InterruptedException {
+		final LegacyStatusBar statusBar = new LegacyStatusBar(legacyService) {
+
+			@Override
+			void deliverStatus(final String message) {
+				delivered.add(message);
+				// NB: Legacy ImageJ reports the new status back to the status bar.
+				setStatus(message);
+			}
+		};
+		statusBar.setMaxUpdateRate(1000);
+		statusBar.setStatus("Hello");
+		assertEquals("Hello", delivered.poll(10, TimeUnit.SECONDS));
+		assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testProcessingEvents() throws InterruptedException {
+		final LegacyStatusBar statusBar = recordingStatusBar();
+		statusBar.setMaxUpdateRate(1000);
+		final boolean processing = legacyService.setProcessingEvents(true);
+		try {
+			statusBar.setStatus("Echo");
+		}
+		finally {
+			legacyService.setProcessingEvents(processing);
+		}
+		statusBar.setStatus("Hello");
+		assertEquals("Hello", delivered.poll(10, TimeUnit.SECONDS));
+		assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testCompletion() throws InterruptedException {
+		final LegacyStatusBar statusBar = recordingStatusBar();
+		statusBar.setMaxUpdateRate(0.01);
+		statusBar.setProgress(1, 10);
+		// the first update is not delayed
+		assertEquals("1/10", delivered.poll(10, TimeUnit.SECONDS));
+		assertEquals("ImageJ-Status-Updater", delivered.poll(10,
+			TimeUnit.SECONDS));
+		statusBar.setProgress(2, 10);
+		statusBar.setProgress(10, 10);
+		// completion is delivered at once, but not on the calling thread
+		assertEquals("10/10", delivered.poll(10, TimeUnit.SECONDS));
+		assertEquals("ImageJ-Status-Updater", delivered.poll(10,
+			TimeUnit.SECONDS));
+	}
+
+	private LegacyStatusBar recordingStatusBar() {
+		return new LegacyStatusBar(legacyService) {
+
+			@Override
+			void deliverStatus(final String message) {
+				delivered.add(message);
+			}
+
+			@Override
+			void deliverProgress(final int val, final int max) {
+				delivered.add(val + "/" + max);
+				delivered.add(Thread.currentThread().getName());
+			}
+		};
+	}
+
+}